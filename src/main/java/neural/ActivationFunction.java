@@ -5,15 +5,29 @@ package main.java.neural;
  * @author Kyle McVay
  */
 public class ActivationFunction {
+	/** Lowest input at which a party hunts the resource it found */
+	public static final double HUNT_THRESHOLD = 1000;
+	/** Lowest input at which a party returns to camp */
+	public static final double RETURN_THRESHOLD = 10000;
+	
 	/**
 	 * Retrieves the output of a neuron.
 	 * @param in - Input value.
 	 * @return 0, 1 or 2
 	 */
 	public double getOutput(double in) {
-		if(in < 1000) {
+		return threshold(in);
+	}
+	
+	/**
+	 * Applies the standard hunt and return thresholds, without a virtual call.
+	 * @param in - Input value.
+	 * @return 0 for ignore, 1 for hunt, 2 for return to camp.
+	 */
+	public static double threshold(double in) {
+		if(in < HUNT_THRESHOLD) {
 			return 0;
-		} else if(in >= 1000 && in < 10000) {
+		} else if(in < RETURN_THRESHOLD) {
 			return 1;
 		} else {
 			return 2;
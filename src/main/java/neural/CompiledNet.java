@@ -0,0 +1,278 @@
+package main.java.neural;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a net compiled into flat arrays. Each hidden layer is a row-major weight matrix with one row per unit, evaluated into a
+ * reusable buffer, and the output is a dot product of the last buffer with the output weights followed by the activation thresholds inlined,
+ * rather than a walk over neurons and connections.
+ * Inputs are stored in the order of the first layer's input connections, and every sum is added up in the same order as
+ * {@link Net#getOutput()}, so both give the same result. A compiled net holds its own inputs and buffers and must not be shared between
+ * running simulations.
+ * @author Kyle McVay
+ */
+public class CompiledNet {
+	// Units of a hidden layer evaluated together, sharing each load of the layer's inputs
+	private static final int BLOCK = 4;
+
+	private String id;
+	private String outputId;
+	private String[] inputIds;
+	private String[] layerIds;
+	private String[][] unitIds;
+	// Weights of each hidden layer then the output, indexed by unit * width of the layer before + input
+	private double[][] weights;
+	// Inputs, then the outputs of each hidden layer
+	private double[][] values;
+	// Custom activation of the output neuron, or null if the standard thresholds are inlined
+	private ActivationFunction activation;
+
+	/**
+	 * Compiles a net.
+	 * @param net - Net to compile. It must have a single output neuron, and every neuron of a layer must take its inputs from the same neurons
+	 * in the same order: the input layer for the first layer, and every neuron of the layer before, in order, for the rest. Hidden neurons must
+	 * use the {@link RectifiedLinearFunction}.
+	 * @throws IllegalArgumentException - Thrown if the net cannot be compiled.
+	 */
+	public CompiledNet(Net net) {
+		if(net.getOutputLayer().getNeurons().size() != 1) {
+			throw new IllegalArgumentException("Only nets with a single output can be compiled");
+		}
+		List<Layer> layers = net.getWeightedLayers();
+		Neuron output = net.getOutputLayer().getNeurons().get(0);
+		this.id = net.getId();
+		this.outputId = output.getId();
+		this.layerIds = new String[layers.size() - 1];
+		this.unitIds = new String[layers.size() - 1][];
+		this.weights = new double[layers.size()][];
+		this.values = new double[layers.size()][];
+
+		// The first neuron of the first layer decides the order of the inputs
+		List<Connection> first = layers.get(0).getNeurons().get(0).getInputConnections();
+		List<Neuron> previous = new ArrayList<Neuron>();
+		this.inputIds = new String[first.size()];
+		this.values[0] = new double[first.size()];
+		for(int k = 0; k < first.size(); k++) {
+			Neuron from = first.get(k).getFromNeuron();
+			if(!(from instanceof InputNeuron) || !net.getInputLayer().getNeurons().contains(from)) {
+				throw new IllegalArgumentException("Every input of the first layer must come from the input layer");
+			}
+			previous.add(from);
+			inputIds[k] = from.getId();
+			values[0][k] = ((InputNeuron)from).getValue();
+		}
+
+		for(int l = 0; l < layers.size(); l++) {
+			List<Neuron> units = layers.get(l).getNeurons();
+			boolean hidden = l < layers.size() - 1;
+			weights[l] = new double[units.size() * previous.size()];
+			if(hidden) {
+				layerIds[l] = layers.get(l).getId();
+				unitIds[l] = new String[units.size()];
+				values[l + 1] = new double[units.size()];
+			}
+			for(int u = 0; u < units.size(); u++) {
+				Neuron unit = units.get(u);
+				List<Connection> connections = unit.getInputConnections();
+				if(connections.size() != previous.size()) {
+					throw new IllegalArgumentException("Every neuron of a layer must take its inputs from the same neurons");
+				}
+				for(int k = 0; k < connections.size(); k++) {
+					if(connections.get(k).getFromNeuron() != previous.get(k)) {
+						throw new IllegalArgumentException("Every neuron of a layer must take its inputs from the same neurons");
+					}
+					weights[l][u * previous.size() + k] = connections.get(k).getWeight();
+				}
+				if(hidden) {
+					if(unit.getActivationFunction().getClass() != RectifiedLinearFunction.class) {
+						throw new IllegalArgumentException("Hidden neurons must use the rectified linear activation");
+					}
+					unitIds[l][u] = unit.getId();
+				}
+			}
+			previous = units;
+		}
+		this.activation = output.getActivationFunction().getClass() == ActivationFunction.class ? null : output.getActivationFunction();
+	}
+
+	/**
+	 * Finds the slot of a named input.
+	 * @param id - Id of input neuron.
+	 * @return Index of the input in {@link #getInputs()}.
+	 * @throws IllegalArgumentException - Thrown if the net has no such input.
+	 */
+	public int inputIndex(String id) {
+		for(int k = 0; k < inputIds.length; k++) {
+			if(inputIds[k].equals(id)) {
+				return k;
+			}
+		}
+		throw new IllegalArgumentException("Net has no input " + id);
+	}
+
+	/**
+	 * Retrieves the inputs of this net, to be written in place before each call to {@link #getOutput()}.
+	 * @return Input values, indexed by slot.
+	 */
+	public double[] getInputs() {
+		return values[0];
+	}
+
+	/**
+	 * Retrieves the number of inputs of this net.
+	 * @return Number of inputs.
+	 */
+	public int getNumInputs() {
+		return values[0].length;
+	}
+
+	/**
+	 * Retrieves if this net has hidden layers. Without them, the weighted sum of the output is linear in every input.
+	 * @return True if there is at least one hidden layer.
+	 */
+	public boolean hasHiddenLayers() {
+		return weights.length > 1;
+	}
+
+	/**
+	 * Retrieves the id of an input.
+	 * @param index - Slot of input.
+	 * @return Id of input neuron.
+	 */
+	public String getInputId(int index) {
+		return inputIds[index];
+	}
+
+	/**
+	 * Retrieves the weight of an input of a net without hidden layers.
+	 * @param index - Slot of input.
+	 * @return Weight of input.
+	 */
+	public double getWeight(int index) {
+		return weights[0][index];
+	}
+
+	/**
+	 * Retrieves the custom activation of the output neuron.
+	 * @return Activation function, or null if the standard thresholds are inlined.
+	 */
+	public ActivationFunction getActivation() {
+		return activation;
+	}
+
+	/**
+	 * Calculates the output of this net for the current inputs.
+	 * @return 0 for ignore, 1 for hunt, 2 for return to camp.
+	 */
+	public double getOutput() {
+		int last = weights.length - 1;
+		for(int l = 0; l < last; l++) {
+			forward(weights[l], values[l], values[l + 1]);
+		}
+		double[] in = values[last];
+		double[] outputWeights = weights[last];
+		double weightedSum = 0.0;
+		for(int k = 0; k < in.length; k++) {
+			weightedSum += in[k] * outputWeights[k];
+		}
+		if(activation != null) {
+			return activation.getOutput(weightedSum);
+		}
+		return ActivationFunction.threshold(weightedSum);
+	}
+
+	/**
+	 * Evaluates a hidden layer. Units are taken a block at a time, so each input is loaded once per block rather than once per unit, and each
+	 * unit's sum is still added up in input order.
+	 * @param weights - Weights of the layer, indexed by unit * inputs + input.
+	 * @param in - Outputs of the layer before.
+	 * @param out - Filled with the output of each unit.
+	 */
+	private static void forward(double[] weights, double[] in, double[] out) {
+		int width = in.length;
+		int u = 0;
+		for(; u + BLOCK <= out.length; u += BLOCK) {
+			int row0 = u * width;
+			int row1 = row0 + width;
+			int row2 = row1 + width;
+			int row3 = row2 + width;
+			double sum0 = 0.0;
+			double sum1 = 0.0;
+			double sum2 = 0.0;
+			double sum3 = 0.0;
+			for(int k = 0; k < width; k++) {
+				double x = in[k];
+				sum0 += x * weights[row0 + k];
+				sum1 += x * weights[row1 + k];
+				sum2 += x * weights[row2 + k];
+				sum3 += x * weights[row3 + k];
+			}
+			out[u] = sum0 > 0 ? sum0 : 0;
+			out[u + 1] = sum1 > 0 ? sum1 : 0;
+			out[u + 2] = sum2 > 0 ? sum2 : 0;
+			out[u + 3] = sum3 > 0 ? sum3 : 0;
+		}
+		for(; u < out.length; u++) {
+			int row = u * width;
+			double sum = 0.0;
+			for(int k = 0; k < width; k++) {
+				sum += in[k] * weights[row + k];
+			}
+			out[u] = sum > 0 ? sum : 0;
+		}
+	}
+
+	/**
+	 * Converts this compiled net back into a net of neurons and connections.
+	 * @return New net with the same inputs, layers, weights and activations.
+	 */
+	public Net toNet() {
+		Layer inputLayer = new Layer("input");
+		for(int k = 0; k < inputIds.length; k++) {
+			inputLayer.getNeurons().add(new InputNeuron(values[0][k], inputIds[k]));
+		}
+		List<Layer> hiddenLayers = new ArrayList<Layer>();
+		Layer previous = inputLayer;
+		for(int l = 0; l < layerIds.length; l++) {
+			Layer hidden = new Layer(layerIds[l]);
+			for(int u = 0; u < unitIds[l].length; u++) {
+				Neuron unit = new Neuron(unitIds[l][u]);
+				unit.setActivationFunction(new RectifiedLinearFunction());
+				hidden.getNeurons().add(unit);
+			}
+			connect(previous, hidden, weights[l]);
+			hiddenLayers.add(hidden);
+			previous = hidden;
+		}
+		Layer outputLayer = new Layer("output");
+		Neuron output = new Neuron(outputId);
+		if(activation != null) {
+			output.setActivationFunction(activation);
+		}
+		outputLayer.getNeurons().add(output);
+		connect(previous, outputLayer, weights[weights.length - 1]);
+		if(hiddenLayers.isEmpty()) {
+			return new Net(id, inputLayer, outputLayer);
+		}
+		return new Net(id, inputLayer, hiddenLayers, outputLayer);
+	}
+
+	/**
+	 * Connects every neuron of one layer to every neuron of the next.
+	 * @param from - Layer before.
+	 * @param to - Layer after.
+	 * @param weights - Weights of the connections, indexed by neuron after * neurons before + neuron before.
+	 */
+	private static void connect(Layer from, Layer to, double[] weights) {
+		List<Neuron> inputs = from.getNeurons();
+		for(int u = 0; u < to.getNeurons().size(); u++) {
+			Neuron unit = to.getNeurons().get(u);
+			for(int k = 0; k < inputs.size(); k++) {
+				Connection connection = new Connection(inputs.get(k), unit, weights[u * inputs.size() + k]);
+				inputs.get(k).getOutputConnections().add(connection);
+				unit.getInputConnections().add(connection);
+			}
+		}
+	}
+}
@@ -9,17 +9,6 @@ public class Connection {
 	protected Neuron toNeuron;
 	protected double weight;
 	
-	/**
-	 * Constructs a new Connection with random weighting.
-	 * @param fromNeuron - Neuron connection is from.
-	 * @param toNeuron - Neuron connection is to.
-	 */
-	public Connection(Neuron fromNeuron, Neuron toNeuron) {
-		this.fromNeuron = fromNeuron;
-		this.toNeuron = toNeuron;
-		this.setWeight(Math.random());
-	}
-	
 	/**
 	 * Constructs a new Connection.
 	 * @param fromNeuron - Neuron connection is from.
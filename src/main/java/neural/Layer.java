@@ -78,4 +78,18 @@ public class Layer {
 		
 		return neuron;
 	}
+	
+	/**
+	 * Retrieves the position of the first neuron in this layer specified by the given id.
+	 * @param id - Id to find.
+	 * @return Index of found neuron, or -1 if not found.
+	 */
+	public int indexOf(String id) {
+		for(int k = 0; k < neurons.size(); k++) {
+			if(neurons.get(k).getId().equals(id)) {
+				return k;
+			}
+		}
+		return -1;
+	}
 }
@@ -1,5 +1,6 @@
 package main.java.neural;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -103,6 +104,47 @@ public class Net {
 		this.id = id;
 	}
 	
+	/**
+	 * Retrieves the layers whose neurons add up weighted inputs, in the order they are evaluated.
+	 * @return Every hidden layer, then the output layer.
+	 */
+	public List<Layer> getWeightedLayers() {
+		List<Layer> layers = new ArrayList<Layer>();
+		if(hiddenLayers != null) {
+			layers.addAll(hiddenLayers);
+		}
+		layers.add(outputLayer);
+		return layers;
+	}
+	
+	/**
+	 * Resolves a named input to its slot in the input layer, so it can be found again without comparing names.
+	 * @param id - Id of input neuron.
+	 * @return Index of the input in the input layer.
+	 * @throws IllegalArgumentException - Thrown if the net has no such input.
+	 */
+	public int inputSlot(String id) {
+		int slot = inputLayer.indexOf(id);
+		if(slot < 0 || !(inputLayer.getNeurons().get(slot) instanceof InputNeuron)) {
+			throw new IllegalArgumentException("Net has no input " + id);
+		}
+		return slot;
+	}
+	
+	/**
+	 * Resolves named inputs to handles that set their values directly. The handles stay valid as long as the input layer is not changed.
+	 * @param ids - Ids of input neurons.
+	 * @return Input neuron of each id, in the same order.
+	 * @throws IllegalArgumentException - Thrown if the net is missing any of the inputs.
+	 */
+	public InputNeuron[] bindInputs(String... ids) {
+		InputNeuron[] inputs = new InputNeuron[ids.length];
+		for(int i = 0; i < ids.length; i++) {
+			inputs[i] = (InputNeuron)inputLayer.getNeurons().get(inputSlot(ids[i]));
+		}
+		return inputs;
+	}
+	
 	/**
 	 * Retrieves the output of this network.
 	 * @return Output of the first output neuron in output layer.
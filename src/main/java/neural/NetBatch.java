@@ -0,0 +1,111 @@
+package main.java.neural;
+
+import java.util.List;
+
+/**
+ * This class represents a batch of single layer nets with the same inputs, compiled into one weight matrix. The matrix is stored input by
+ * input, so the weights of one input for consecutive nets are contiguous. A block holding an input vector for each net is evaluated in one
+ * pass over contiguous memory by a {@link WeightedSumKernel}, rather than by one walk over neurons and connections per decision.
+ * Inputs are stored in the order of the output neuron's input connections, like {@link CompiledNet}, so every decision is added up in the
+ * same order as {@link Net#getOutput()} and gives the same result.
+ * @author Kyle McVay
+ */
+public class NetBatch {
+	private int size;
+	private int numInputs;
+	private String[] inputIds;
+	// Weights of every net, indexed by input * size + net
+	private double[] weights;
+	// Custom activation of each net, or null where the standard thresholds are inlined
+	private ActivationFunction[] activations;
+	private WeightedSumKernel kernel;
+	
+	/**
+	 * Compiles a batch of nets.
+	 * @param nets - Nets to compile, at least one. Every net must compile to a {@link CompiledNet} without hidden layers, with the same inputs
+	 * in the same order.
+	 * @throws IllegalArgumentException - Thrown if a net cannot be compiled or has different inputs from the first.
+	 */
+	public NetBatch(List<Net> nets) {
+		if(nets.isEmpty()) {
+			throw new IllegalArgumentException("A batch needs at least one net");
+		}
+		CompiledNet first = new CompiledNet(nets.get(0));
+		this.size = nets.size();
+		this.numInputs = first.getNumInputs();
+		this.inputIds = new String[numInputs];
+		for(int k = 0; k < numInputs; k++) {
+			inputIds[k] = first.getInputId(k);
+		}
+		this.weights = new double[size * numInputs];
+		this.activations = new ActivationFunction[size];
+		for(int i = 0; i < size; i++) {
+			CompiledNet net = i == 0 ? first : new CompiledNet(nets.get(i));
+			if(net.hasHiddenLayers()) {
+				throw new IllegalArgumentException("A batch only holds nets without hidden layers");
+			}
+			if(net.getNumInputs() != numInputs) {
+				throw new IllegalArgumentException("Every net must have the same inputs");
+			}
+			for(int k = 0; k < numInputs; k++) {
+				if(!net.getInputId(k).equals(inputIds[k])) {
+					throw new IllegalArgumentException("Every net must have the same inputs");
+				}
+				weights[k * size + i] = net.getWeight(k);
+			}
+			activations[i] = net.getActivation();
+		}
+		this.kernel = WeightedSumKernel.create();
+	}
+	
+	/**
+	 * Finds the column of a named input.
+	 * @param id - Id of input neuron.
+	 * @return Index of the input, so input k of net i is at k * size + i of a block.
+	 * @throws IllegalArgumentException - Thrown if the nets have no such input.
+	 */
+	public int inputIndex(String id) {
+		for(int k = 0; k < numInputs; k++) {
+			if(inputIds[k].equals(id)) {
+				return k;
+			}
+		}
+		throw new IllegalArgumentException("Net has no input " + id);
+	}
+	
+	/**
+	 * Retrieves the number of nets in this batch.
+	 * @return Number of nets.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Retrieves the number of inputs of each net.
+	 * @return Number of inputs.
+	 */
+	public int getNumInputs() {
+		return numInputs;
+	}
+	
+	/**
+	 * Retrieves the kernel this batch adds up weighted inputs with.
+	 * @return Vector kernel if it is available, otherwise the scalar kernel.
+	 */
+	public WeightedSumKernel getKernel() {
+		return kernel;
+	}
+	
+	/**
+	 * Evaluates a block holding an input vector for every net, each against its own net.
+	 * @param inputs - Input vectors, indexed by input * size + net.
+	 * @param decisions - Filled with the decision of each net: 0 for ignore, 1 for hunt, 2 for return to camp.
+	 */
+	public void evaluate(double[] inputs, double[] decisions) {
+		kernel.weightedSums(inputs, weights, numInputs, size, decisions);
+		for(int i = 0; i < size; i++) {
+			decisions[i] = activations[i] == null ? ActivationFunction.threshold(decisions[i]) : activations[i].getOutput(decisions[i]);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package main.java.neural;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.Arrays;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * This class represents a generator of decision functions specialized to one fixed net. It writes a subclass of {@link CompiledNet} whose
+ * output is a single straight-line sum with every weight as a literal constant, compiles it in memory and loads it into its own class loader,
+ * so the JIT sees constants rather than loads from a weight array.
+ * Code is only generated for nets without hidden layers, and only when a Java compiler is available at run time. Otherwise the generator
+ * falls back to {@link CompiledNet}, which gives the same decisions.
+ * @author Kyle McVay
+ */
+public class NetCodeGenerator {
+	private static final String CLASS_NAME = "GeneratedNet";
+	
+	private Net net;
+	// Constructor of the generated class, or null if the generator fell back to CompiledNet
+	private Constructor<? extends CompiledNet> constructor;
+	private String fallbackReason;
+	// Instance and input neurons used to check the generated code against the net
+	private CompiledNet check;
+	private InputNeuron[] inputs;
+	
+	/**
+	 * Generates the decision function of a net.
+	 * @param net - Net to generate code for. It must not be changed afterwards.
+	 * @throws IllegalArgumentException - Thrown if the net cannot be compiled.
+	 */
+	public NetCodeGenerator(Net net) {
+		this.net = net;
+		CompiledNet compiled = new CompiledNet(net);
+		if(compiled.hasHiddenLayers()) {
+			fallbackReason = "nets with hidden layers are not generated";
+		} else if(ToolProvider.getSystemJavaCompiler() == null) {
+			fallbackReason = "no Java compiler is available";
+		} else {
+			generate(compiled);
+		}
+		
+		this.check = newCompiledNet();
+		String[] ids = new String[check.getNumInputs()];
+		for(int k = 0; k < ids.length; k++) {
+			ids[k] = check.getInputId(k);
+		}
+		this.inputs = net.bindInputs(ids);
+	}
+	
+	/**
+	 * Writes, compiles and loads the decision function of a compiled net. Falls back to CompiledNet if any step fails.
+	 * @param compiled - Compiled net to generate code for.
+	 */
+	private void generate(CompiledNet compiled) {
+		final String source = source(compiled);
+		final ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + CLASS_NAME + ".java"), JavaFileObject.Kind.SOURCE) {
+			/**
+			 * Retrieves the generated source.
+			 */
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(compiler.getStandardFileManager(null, null, null)) {
+			/**
+			 * Collects the compiled class in memory rather than writing it to disk.
+			 */
+			@Override
+			public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("bytes:///" + className + kind.extension), kind) {
+					/**
+					 * Opens the buffer the class is written to.
+					 */
+					@Override
+					public OutputStream openOutputStream() {
+						return bytecode;
+					}
+				};
+			}
+		};
+		
+		StringWriter errors = new StringWriter();
+		String classPath = System.getProperty("java.class.path");
+		boolean succeeded = compiler.getTask(errors, files, null, Arrays.asList("-classpath", classPath, "-g:none", "-proc:none"), null, Arrays.asList(file)).call();
+		try {
+			files.close();
+		} catch(IOException e) {
+			// Nothing was written to disk, so there is nothing left to clean up
+		}
+		if(!succeeded) {
+			fallbackReason = "generated code did not compile: " + errors.toString().trim();
+			return;
+		}
+		
+		final byte[] bytes = bytecode.toByteArray();
+		ClassLoader loader = new ClassLoader(CompiledNet.class.getClassLoader()) {
+			/**
+			 * Defines the generated class from its bytecode.
+			 */
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				if(!name.equals(CLASS_NAME)) {
+					throw new ClassNotFoundException(name);
+				}
+				return defineClass(name, bytes, 0, bytes.length);
+			}
+		};
+		try {
+			constructor = loader.loadClass(CLASS_NAME).asSubclass(CompiledNet.class).getConstructor(Net.class);
+		} catch(ReflectiveOperationException | LinkageError e) {
+			fallbackReason = "generated code could not be loaded: " + e;
+		}
+	}
+	
+	/**
+	 * Writes the source of the decision function of a compiled net. The weighted sum is added up in the same order as the compiled net, and
+	 * weights are written as hexadecimal literals so they keep every bit.
+	 * @param compiled - Compiled net to generate code for.
+	 * @return Source of a subclass of CompiledNet.
+	 */
+	private static String source(CompiledNet compiled) {
+		StringBuilder source = new StringBuilder();
+		source.append("public final class ").append(CLASS_NAME).append(" extends main.java.neural.CompiledNet {\n");
+		source.append("\tpublic ").append(CLASS_NAME).append("(main.java.neural.Net net) {\n\t\tsuper(net);\n\t}\n");
+		source.append("\t@Override\n\tpublic double getOutput() {\n");
+		source.append("\t\tdouble[] in = getInputs();\n\t\tdouble weightedSum = 0.0;\n");
+		for(int k = 0; k < compiled.getNumInputs(); k++) {
+			source.append("\t\tweightedSum += in[").append(k).append("] * ").append(literal(compiled.getWeight(k))).append(";\n");
+		}
+		if(compiled.getActivation() == null) {
+			source.append("\t\treturn main.java.neural.ActivationFunction.threshold(weightedSum);\n");
+		} else {
+			source.append("\t\treturn getActivation().getOutput(weightedSum);\n");
+		}
+		source.append("\t}\n}\n");
+		return source.toString();
+	}
+	
+	/**
+	 * Writes a weight as a Java literal.
+	 * @param weight - Weight to write.
+	 * @return Exact literal of the weight.
+	 */
+	private static String literal(double weight) {
+		if(Double.isNaN(weight)) {
+			return "Double.NaN";
+		} else if(Double.isInfinite(weight)) {
+			return weight > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+		}
+		return "(" + Double.toHexString(weight) + ")";
+	}
+	
+	/**
+	 * Retrieves the net this generator was built for.
+	 * @return Net of the decision function.
+	 */
+	public Net getNet() {
+		return net;
+	}
+	
+	/**
+	 * Retrieves if code was generated for the net.
+	 * @return True if new instances run generated code, false if they are compiled nets.
+	 */
+	public boolean isGenerated() {
+		return constructor != null;
+	}
+	
+	/**
+	 * Retrieves why no code was generated for the net.
+	 * @return Reason for falling back to a compiled net, or null if code was generated.
+	 */
+	public String getFallbackReason() {
+		return fallbackReason;
+	}
+	
+	/**
+	 * Creates a new instance of the decision function, with its own inputs. Each running simulation needs its own instance.
+	 * @return Instance of the generated code, or a compiled net if no code was generated.
+	 */
+	public CompiledNet newCompiledNet() {
+		if(constructor != null) {
+			try {
+				return constructor.newInstance(net);
+			} catch(ReflectiveOperationException e) {
+				throw new IllegalStateException("Generated net could not be created", e);
+			}
+		}
+		return new CompiledNet(net);
+	}
+	
+	/**
+	 * Checks that the decision function gives the same output as {@link Net#getOutput()} for one set of inputs. Sets the values of the net's
+	 * input neurons, so it must not run while the net is being evaluated elsewhere.
+	 * @param values - Value of each input, in the slot order of {@link CompiledNet#getInputs()}.
+	 * @return True if both outputs are the same.
+	 */
+	public boolean agrees(double[] values) {
+		double[] slots = check.getInputs();
+		for(int k = 0; k < inputs.length; k++) {
+			inputs[k].setValue(values[k]);
+			slots[k] = values[k];
+		}
+		return Double.compare(net.getOutput(), check.getOutput()) == 0;
+	}
+	
+	/**
+	 * Retrieves the number of inputs of the decision function.
+	 * @return Number of inputs.
+	 */
+	public int getNumInputs() {
+		return inputs.length;
+	}
+}
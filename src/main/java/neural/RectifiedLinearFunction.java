@@ -0,0 +1,18 @@
+package main.java.neural;
+
+/**
+ * This class represents the rectified linear activation function of a hidden neuron. It passes positive inputs through unchanged and
+ * outputs 0 for everything else.
+ * @author Kyle McVay
+ */
+public class RectifiedLinearFunction extends ActivationFunction {
+	/**
+	 * Retrieves the output of a neuron.
+	 * @param in - Input value.
+	 * @return The input if it is positive, otherwise 0.
+	 */
+	@Override
+	public double getOutput(double in) {
+		return in > 0 ? in : 0;
+	}
+}
@@ -0,0 +1,75 @@
+package main.java.neural;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * This class represents the kernel that adds up the weighted inputs of a batch of nets, each net with its own input vector. Inputs and weights
+ * are stored input by input, so the values of one input for consecutive nets are contiguous and the nets can be taken as the lanes of a
+ * vector, each lane still adding up its inputs in order.
+ * This scalar kernel is always available. Builds with the vector profile add a kernel on the Java Vector API, which is loaded in its place
+ * when the jdk.incubator.vector module is present at run time. Both give identical sums.
+ * @author Kyle McVay
+ */
+public class WeightedSumKernel {
+	private static final String VECTOR_KERNEL = "main.java.neural.vector.VectorWeightedSumKernel";
+	// Constructor of the vector kernel, or null if it was not built or its module is missing
+	private static final Constructor<? extends WeightedSumKernel> VECTOR = findVectorKernel();
+	
+	/**
+	 * Finds the vector kernel, if it was built and its module can be loaded.
+	 * @return Constructor of the vector kernel, or null if it is not available.
+	 */
+	private static Constructor<? extends WeightedSumKernel> findVectorKernel() {
+		try {
+			Constructor<? extends WeightedSumKernel> constructor = Class.forName(VECTOR_KERNEL).asSubclass(WeightedSumKernel.class).getConstructor();
+			// Build one to make sure the module links, rather than failing on the first batch
+			constructor.newInstance();
+			return constructor;
+		} catch(ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Creates the fastest kernel available.
+	 * @return Vector kernel if it is available, otherwise a scalar kernel.
+	 */
+	public static WeightedSumKernel create() {
+		if(VECTOR != null) {
+			try {
+				return VECTOR.newInstance();
+			} catch(ReflectiveOperationException e) {
+				// Fall through to the scalar kernel
+			}
+		}
+		return new WeightedSumKernel();
+	}
+	
+	/**
+	 * Retrieves the name of this kernel.
+	 * @return "scalar" or "vector".
+	 */
+	public String getName() {
+		return "scalar";
+	}
+	
+	/**
+	 * Adds up the weighted inputs of every net of a batch.
+	 * @param inputs - Input vector of each net, indexed by input * size + net.
+	 * @param weights - Weights of each net, indexed by input * size + net.
+	 * @param numInputs - Number of inputs of each net.
+	 * @param size - Number of nets.
+	 * @param sums - Filled with the weighted sum of each net.
+	 */
+	public void weightedSums(double[] inputs, double[] weights, int numInputs, int size, double[] sums) {
+		for(int i = 0; i < size; i++) {
+			sums[i] = 0.0;
+		}
+		for(int k = 0; k < numInputs; k++) {
+			int column = k * size;
+			for(int i = 0; i < size; i++) {
+				sums[i] += inputs[column + i] * weights[column + i];
+			}
+		}
+	}
+}
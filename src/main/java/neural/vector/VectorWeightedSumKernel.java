@@ -0,0 +1,57 @@
+package main.java.neural.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+import main.java.neural.WeightedSumKernel;
+
+/**
+ * This class represents a kernel that adds up the weighted inputs of a batch of nets with the Java Vector API, one net per lane. Each lane
+ * multiplies and adds in the same order as the scalar kernel, without fused multiply-adds, so the sums are identical.
+ * It is only compiled by the vector profile and needs the jdk.incubator.vector module at run time, so it is loaded by
+ * {@link WeightedSumKernel#create()} rather than referenced directly.
+ * @author Kyle McVay
+ */
+public class VectorWeightedSumKernel extends WeightedSumKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	/**
+	 * Retrieves the name of this kernel.
+	 * @return "vector".
+	 */
+	@Override
+	public String getName() {
+		return "vector";
+	}
+	
+	/**
+	 * Adds up the weighted inputs of every net of a batch, a vector of nets at a time.
+	 * @param inputs - Input vector of each net, indexed by input * size + net.
+	 * @param weights - Weights of each net, indexed by input * size + net.
+	 * @param numInputs - Number of inputs of each net.
+	 * @param size - Number of nets.
+	 * @param sums - Filled with the weighted sum of each net.
+	 */
+	@Override
+	public void weightedSums(double[] inputs, double[] weights, int numInputs, int size, double[] sums) {
+		int lanes = SPECIES.length();
+		int i = 0;
+		for(; i + lanes <= size; i += lanes) {
+			DoubleVector sum = DoubleVector.zero(SPECIES);
+			for(int k = 0; k < numInputs; k++) {
+				int column = k * size + i;
+				DoubleVector x = DoubleVector.fromArray(SPECIES, inputs, column);
+				DoubleVector w = DoubleVector.fromArray(SPECIES, weights, column);
+				sum = sum.add(x.mul(w));
+			}
+			sum.intoArray(sums, i);
+		}
+		// Nets left over after the last full vector
+		for(; i < size; i++) {
+			double sum = 0.0;
+			for(int k = 0; k < numInputs; k++) {
+				sum += inputs[k * size + i] * weights[k * size + i];
+			}
+			sums[i] = sum;
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package main.java.people;
+
+import java.util.Arrays;
+import java.util.List;
+
+import main.java.resource.Resource;
+
+/**
+ * This class represents the resources carried by one or more parties. Each load keeps the pounds carried of every resource in a dense array
+ * indexed by resource id, and its carried resources in a min heap ordered by caloric density, so the least valuable resource is found without
+ * scanning the load. The weight and calories of a load are still summed again over every resource id after each change, so each put or take
+ * costs O(number of resources). Summing them in id order keeps them bit for bit the same as before the heap, and so keeps seeded runs the same.
+ * Loads are stored side by side in flat arrays, indexed by load * number of resources + resource id.
+ * @author Kyle McVay
+ */
+public class CarryLoad {
+	private int loads;
+	private int numResources;
+	private Resource[] resources;
+	private double[] density;
+	
+	private double[] carried;
+	private boolean[] carrying;
+	private double[] weight;
+	private double[] cals;
+	
+	// Carried resource ids of each load, ordered by density then id
+	private int[] heap;
+	private int[] heapSize;
+	// Position of each resource in its load's heap, -1 if it is not carried
+	private int[] position;
+	
+	/**
+	 * Constructs a new CarryLoad. Resources are registered as they are first carried.
+	 * @param loads - Number of loads.
+	 */
+	public CarryLoad(int loads) {
+		this.loads = loads;
+		this.resources = new Resource[0];
+		this.density = new double[0];
+		this.carried = new double[0];
+		this.carrying = new boolean[0];
+		this.weight = new double[loads];
+		this.cals = new double[loads];
+		this.heap = new int[0];
+		this.heapSize = new int[loads];
+		this.position = new int[0];
+	}
+	
+	/**
+	 * Constructs a new CarryLoad with every resource registered up front.
+	 * @param loads - Number of loads.
+	 * @param resources - Every resource that may be carried, indexed by id.
+	 */
+	public CarryLoad(int loads, List<Resource> resources) {
+		this(loads);
+		for(Resource resource: resources) {
+			register(resource);
+		}
+	}
+	
+	/**
+	 * Retrieves the weight of a load.
+	 * @param load - Index of load.
+	 * @return Sum of the pounds of every carried resource.
+	 */
+	public double getWeight(int load) {
+		return weight[load];
+	}
+	
+	/**
+	 * Retrieves the calories of a load.
+	 * @param load - Index of load.
+	 * @return Sum of the calories of every carried resource.
+	 */
+	public double getCalories(int load) {
+		return cals[load];
+	}
+	
+	/**
+	 * Retrieves if a load carries a resource.
+	 * @param load - Index of load.
+	 * @param id - Id of resource.
+	 * @return True if the resource is carried.
+	 */
+	public boolean isCarrying(int load, int id) {
+		return id < numResources && carrying[load * numResources + id];
+	}
+	
+	/**
+	 * Retrieves the pounds of a resource a load carries.
+	 * @param load - Index of load.
+	 * @param id - Id of resource.
+	 * @return Pounds carried, 0 if the resource is not carried.
+	 */
+	public double getCarried(int load, int id) {
+		return isCarrying(load, id) ? carried[load * numResources + id] : 0.0;
+	}
+	
+	/**
+	 * Retrieves a registered resource.
+	 * @param id - Id of resource.
+	 * @return The resource, or null if it has never been carried.
+	 */
+	public Resource getResource(int id) {
+		return id < numResources ? resources[id] : null;
+	}
+	
+	/**
+	 * Retrieves the number of resource ids registered.
+	 * @return One more than the highest registered id.
+	 */
+	public int getNumResources() {
+		return numResources;
+	}
+	
+	/**
+	 * Adds a new kill to a load, making room for it if the load is full. While the kill does not fit, the carried resource with the lowest
+	 * caloric density is dropped, up to the kill's weight at a time, and the kill fills the load back up to its maximum weight. This stops
+	 * once no carried resource is less dense than the kill.
+	 * The checks are made in the same order as the recursive search this replaces, against the same totals, so rounding stops both at the same point.
+	 * Each resource dropped costs O(log n) to find and O(number of resources) to update the totals.
+	 * @param load - Index of load.
+	 * @param toAdd - Resource to add.
+	 * @param amount - Pounds of resource to add.
+	 * @param maxWeight - Maximum weight of load.
+	 */
+	public void add(int load, Resource toAdd, double amount, double maxWeight) {
+		register(toAdd);
+		int base = load * numResources;
+		double added = density[toAdd.getId()];
+		while(true) {
+			if(weight[load] + amount < maxWeight) {
+				put(load, toAdd, amount);
+				return;
+			}
+			
+			if(weight[load] < maxWeight) {
+				put(load, toAdd, maxWeight - weight[load]);
+			}
+			
+			if(heapSize[load] == 0 || !(density[heap[base]] < added)) {
+				put(load, toAdd, maxWeight - weight[load]);
+				return;
+			}
+			take(load, heap[base], weight[load] + amount - maxWeight);
+		}
+	}
+	
+	/**
+	 * Adds pounds of a resource to a load, without checking its maximum weight. Sums the load's totals again, in O(number of resources).
+	 * @param load - Index of load.
+	 * @param resource - Resource to add.
+	 * @param amount - Pounds of resource to add.
+	 */
+	public void put(int load, Resource resource, double amount) {
+		register(resource);
+		int index = load * numResources + resource.getId();
+		carried[index] = (carrying[index] ? carried[index] : 0.0) + amount;
+		if(!carrying[index]) {
+			carrying[index] = true;
+			addToHeap(load, resource.getId());
+		}
+		updateTotals(load);
+	}
+	
+	/**
+	 * Removes pounds of a resource from a load. The resource is dropped entirely if nothing is left. Sums the load's totals again, in O(number
+	 * of resources).
+	 * @param load - Index of load.
+	 * @param id - Id of resource.
+	 * @param amount - Pounds of resource to remove.
+	 */
+	private void take(int load, int id, double amount) {
+		int index = load * numResources + id;
+		carried[index] = carried[index] - amount;
+		if(carried[index] <= 0.0) {
+			carried[index] = 0.0;
+			carrying[index] = false;
+			removeFromHeap(load, id);
+		}
+		updateTotals(load);
+	}
+	
+	/**
+	 * Empties a load.
+	 * @param load - Index of load.
+	 */
+	public void clear(int load) {
+		int base = load * numResources;
+		for(int k = 0; k < heapSize[load]; k++) {
+			int id = heap[base + k];
+			carried[base + id] = 0.0;
+			carrying[base + id] = false;
+			position[base + id] = -1;
+		}
+		heapSize[load] = 0;
+		weight[load] = 0.0;
+		cals[load] = 0.0;
+	}
+	
+	/**
+	 * Recalculates the weight and calories of a load after it changes. The totals are summed in resource id order, so they do not depend on the
+	 * order resources were added or dropped in. Keeping running totals instead would be O(1), but rounds differently and changes seeded runs.
+	 * @param load - Index of load.
+	 */
+	private void updateTotals(int load) {
+		double currentWeight = 0.0;
+		double currentCals = 0.0;
+		int base = load * numResources;
+		for(int r = 0; r < numResources; r++) {
+			if(carrying[base + r]) {
+				currentWeight += carried[base + r];
+				currentCals += carried[base + r] * density[r];
+			}
+		}
+		weight[load] = currentWeight;
+		cals[load] = currentCals;
+	}
+	
+	/**
+	 * Registers a resource, growing every load to fit its id if needed.
+	 * @param resource - Resource to register.
+	 */
+	private void register(Resource resource) {
+		int id = resource.getId();
+		if(id < numResources) {
+			if(resources[id] == null) {
+				resources[id] = resource;
+				density[id] = resource.getCalories() / resource.getWeight();
+			}
+			return;
+		}
+		
+		int grown = id + 1;
+		double[] newCarried = new double[loads * grown];
+		boolean[] newCarrying = new boolean[loads * grown];
+		int[] newHeap = new int[loads * grown];
+		int[] newPosition = new int[loads * grown];
+		Arrays.fill(newPosition, -1);
+		for(int load = 0; load < loads; load++) {
+			System.arraycopy(carried, load * numResources, newCarried, load * grown, numResources);
+			System.arraycopy(carrying, load * numResources, newCarrying, load * grown, numResources);
+			System.arraycopy(heap, load * numResources, newHeap, load * grown, numResources);
+			System.arraycopy(position, load * numResources, newPosition, load * grown, numResources);
+		}
+		this.carried = newCarried;
+		this.carrying = newCarrying;
+		this.heap = newHeap;
+		this.position = newPosition;
+		
+		this.resources = Arrays.copyOf(resources, grown);
+		this.density = Arrays.copyOf(density, grown);
+		this.numResources = grown;
+		resources[id] = resource;
+		density[id] = resource.getCalories() / resource.getWeight();
+	}
+	
+	/**
+	 * Checks if a resource is dropped before another, by lower density then lower id.
+	 * @param a - Id of first resource.
+	 * @param b - Id of second resource.
+	 * @return True if a is dropped first.
+	 */
+	private boolean lower(int a, int b) {
+		return density[a] < density[b] || (density[a] == density[b] && a < b);
+	}
+	
+	/**
+	 * Adds a resource to a load's heap.
+	 * @param load - Index of load.
+	 * @param id - Id of resource.
+	 */
+	private void addToHeap(int load, int id) {
+		int k = heapSize[load]++;
+		siftUp(load, k, id);
+	}
+	
+	/**
+	 * Removes a resource from a load's heap.
+	 * @param load - Index of load.
+	 * @param id - Id of resource.
+	 */
+	private void removeFromHeap(int load, int id) {
+		int base = load * numResources;
+		int k = position[base + id];
+		position[base + id] = -1;
+		int last = heap[base + --heapSize[load]];
+		if(last == id) {
+			return;
+		}
+		siftDown(load, k, last);
+		if(position[base + last] == k) {
+			siftUp(load, k, last);
+		}
+	}
+	
+	/**
+	 * Moves a resource up a load's heap from a position until its parent is lower.
+	 * @param load - Index of load.
+	 * @param k - Starting position.
+	 * @param id - Id of resource.
+	 */
+	private void siftUp(int load, int k, int id) {
+		int base = load * numResources;
+		while(k > 0) {
+			int parent = (k - 1) >>> 1;
+			int above = heap[base + parent];
+			if(!lower(id, above)) {
+				break;
+			}
+			heap[base + k] = above;
+			position[base + above] = k;
+			k = parent;
+		}
+		heap[base + k] = id;
+		position[base + id] = k;
+	}
+	
+	/**
+	 * Moves a resource down a load's heap from a position until its children are higher.
+	 * @param load - Index of load.
+	 * @param k - Starting position.
+	 * @param id - Id of resource.
+	 */
+	private void siftDown(int load, int k, int id) {
+		int base = load * numResources;
+		int size = heapSize[load];
+		while(2 * k + 1 < size) {
+			int child = 2 * k + 1;
+			if(child + 1 < size && lower(heap[base + child + 1], heap[base + child])) {
+				child++;
+			}
+			int below = heap[base + child];
+			if(!lower(below, id)) {
+				break;
+			}
+			heap[base + k] = below;
+			position[base + below] = k;
+			k = child;
+		}
+		heap[base + k] = id;
+		position[base + id] = k;
+	}
+}
@@ -1,7 +1,8 @@
 package main.java.people;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,8 +17,20 @@ public class Group {
 	private List<Person> members;
 	private double excessMeat;
 	private double excessPlants;
-	private Map<Resource, Integer> totalGathered;
+	// Individuals of each resource gathered, indexed by resource id, and the ids in the order they were first gathered
+	private Resource[] resources;
+	private int[] gathered;
+	private int[] gatheredOrder;
+	private int numGathered;
 	private int daysSurvived = 0;
+	private int allocated;
+	private int freeCursor;// No member before this index is free
+	private boolean deficientToday;// If any member was deficient on the day last fed
+	// Buffers of feedGroup, indexed by member
+	private double[] neededMeat;
+	private double[] neededPlants;
+	private double[] sharesMeat;
+	private double[] sharesPlants;
 	
 	/**
 	 * Initializes a new group with default values
@@ -34,7 +47,9 @@ public class Group {
 	public Group(List<Party> parties, List<Person> members) {
 		this.setParties(parties);
 		this.setMembers(members);
-		this.setTotalGathered(new HashMap<Resource, Integer>());
+		this.resources = new Resource[0];
+		this.gathered = new int[0];
+		this.gatheredOrder = new int[0];
 	}
 
 	/**
@@ -51,6 +66,12 @@ public class Group {
 	 */
 	public void setParties(List<Party> parties) {
 		this.parties = parties;
+		this.allocated = 0;
+		for(Party party: parties) {
+			this.allocated += party.size();
+			party.setGroup(this);
+		}
+		this.freeCursor = 0;
 	}
 
 	/**
@@ -67,19 +88,17 @@ public class Group {
 	 */
 	public void setMembers(List<Person> members) {
 		this.members = members;
+		this.freeCursor = 0;
+		for(int m = 0; m < members.size(); m++) {
+			members.get(m).setIndex(m);
+		}
 	}
 	
 	/**
-	 * Retrieves the number of assigned members of this group.
+	 * Retrieves the number of assigned members of this group. The count is kept as parties are allocated or set.
 	 * @return The number of members of this group currently assigned to a party.
 	 */
 	public int allocatedMembers() {
-		int allocated = 0;
-		
-		for(Party party: this.getParties()) {
-			allocated += party.size();
-		}
-		
 		return allocated;
 	}
 	
@@ -100,22 +119,45 @@ public class Group {
 		// Create a new party
 		Party newParty = new Party(hunting);
 		
-		// Allocate unassigned members to the party
-		for(Person member: this.getMembers()) {
+		// Allocate unassigned members to the party, starting from the first member that may be free
+		for(; freeCursor < this.getMembers().size(); freeCursor++) {
+			Person member = this.getMembers().get(freeCursor);
 			if(!member.isInParty()) {
+				member.setIndex(freeCursor);
 				newParty.addMember(member);
 			}
 			if(newParty.size() == partySize) {
+				freeCursor++;
 				break;
 			}
 		}
 		
 		// Add the allocated party to the list of parties
 		this.getParties().add(newParty);
+		newParty.setGroup(this);
+		allocated += newParty.size();
+	}
+	
+	/**
+	 * Frees a member removed from one of this group's parties. The count of allocated members drops by one, and the search for free members
+	 * starts again no later than the freed member. The member's position is the one recorded when members were set or allocated, so no
+	 * search is needed unless the list was changed since.
+	 * @param member - Member removed from a party.
+	 */
+	void release(Person member) {
+		allocated--;
+		int index = member.getIndex();
+		if(index < 0 || index >= this.getMembers().size() || this.getMembers().get(index) != member) {
+			index = this.getMembers().indexOf(member);
+		}
+		if(index >= 0 && index < freeCursor) {
+			freeCursor = index;
+		}
 	}
 	
 	/**
 	 * Feeds all members of this group. and adds extra resources to excess stores.
+	 * The shares are worked out in buffers reused from day to day, so feeding allocates nothing once the buffers have grown to the group's size.
 	 * @throws StarvationException Thrown if a member of the group starves to death.
 	 */
 	public void feedGroup() throws StarvationException {
@@ -123,7 +165,8 @@ public class Group {
 		double totalCalsPlants = 0.0;
 		
 		// Add up every group's contribution
-		for(Party party: this.getParties()) {
+		for(int p = 0; p < this.getParties().size(); p++) {
+			Party party = this.getParties().get(p);
 			if(party.isHunting()) {
 				totalCalsMeat += party.getCurrentCals();
 			} else {
@@ -131,61 +174,78 @@ public class Group {
 			}
 		}
 		
-		// New resources, share equally to start
-		double shareMeat = totalCalsMeat / this.getMembers().size();
-		double sharePlants = totalCalsPlants / this.getMembers().size();
+		int size = this.getMembers().size();
+		if(neededMeat == null || neededMeat.length < size) {
+			neededMeat = new double[size];
+			neededPlants = new double[size];
+			sharesMeat = new double[size];
+			sharesPlants = new double[size];
+		}
+		for(int m = 0; m < size; m++) {
+			Person member = this.getMembers().get(m);
+			neededMeat[m] = member.getCalsMeatNeeded();
+			neededPlants[m] = member.getCalsPlantsNeeded();
+		}
 		
-		double redistributedMeat = 0;
-		double redistributedPlants = 0;
-		Map<Person, Double> sharesMeat = new HashMap<Person, Double>();
-		Map<Person, Double> sharesPlants = new HashMap<Person, Double>();
+		// Add anything left to score
+		excessMeat += share(totalCalsMeat, neededMeat, sharesMeat, size);
+		excessPlants += share(totalCalsPlants, neededPlants, sharesPlants, size);
 		
-		// If anyone has more than they need, put it back in pool for distribution
-		for(Person member: this.getMembers()) {
-			sharesMeat.put(member, shareMeat);
-			sharesPlants.put(member, sharePlants);
-			if(member.getCalsMeatNeeded() < shareMeat) {
-				redistributedMeat += shareMeat - member.getCalsMeatNeeded();
-				sharesMeat.put(member, member.getCalsMeatNeeded());
+		// Feeding changes deficient streaks, and with them how much each party can carry
+		for(int p = 0; p < this.getParties().size(); p++) {
+			this.getParties().get(p).invalidateMaxWeight();
+		}
+		
+		// Feed each person their share
+		deficientToday = false;
+		for(int m = 0; m < size; m++) {
+			Person member = this.getMembers().get(m);
+			if(sharesMeat[m] < neededMeat[m] || sharesPlants[m] < neededPlants[m]) {
+				deficientToday = true;
+				member.defficientDay();
+			} else {
+				member.resetDefecientStreak();
 			}
-			if(member.getCalsPlantsNeeded() < sharePlants) {
-				redistributedPlants += sharePlants - member.getCalsPlantsNeeded();
-				sharesPlants.put(member, member.getCalsPlantsNeeded());
+		}
+	}
+	
+	/**
+	 * Shares calories of one kind of food between members. Calories are shared equally to start, anything more than a member needs is put back
+	 * in a pool, and the pool fills out the needs of as many members as possible in member order.
+	 * @param total - Total calories to share.
+	 * @param needed - Calories each member needs, indexed by member.
+	 * @param shares - Set to the calories each member is given, indexed by member.
+	 * @param count - Number of members.
+	 * @return Calories left over once every member that can be is fed.
+	 */
+	public static double share(double total, double[] needed, double[] shares, int count) {
+		// New resources, share equally to start
+		double share = total / count;
+		double redistributed = 0;
+		
+		// If anyone has more than they need, put it back in pool for distribution
+		for(int m = 0; m < count; m++) {
+			shares[m] = share;
+			if(needed[m] < share) {
+				redistributed += share - needed[m];
+				shares[m] = needed[m];
 			}
 		}
 		
 		// Fill out calories for as many members as possible from extra food
-		for(Person member: this.getMembers()) {
-			if(member.getCalsMeatNeeded() > sharesMeat.get(member)) {
-				double calsNeeded = member.getCalsMeatNeeded() - sharesMeat.get(member);
-				if(redistributedMeat >= calsNeeded) {
-					redistributedMeat -= calsNeeded;
-					sharesMeat.put(member, member.getCalsMeatNeeded());
+		for(int m = 0; m < count; m++) {
+			if(needed[m] > shares[m]) {
+				double calsNeeded = needed[m] - shares[m];
+				if(redistributed >= calsNeeded) {
+					redistributed -= calsNeeded;
+					shares[m] = needed[m];
 				} else {
-					sharesMeat.put(member, sharesMeat.get(member) + redistributedMeat);
-					redistributedMeat = 0;
+					shares[m] = shares[m] + redistributed;
+					redistributed = 0;
 				}
 			}
-			if(member.getCalsPlantsNeeded() > sharesPlants.get(member)) {
-				double calsNeeded = member.getCalsPlantsNeeded() - sharesPlants.get(member);
-				if(redistributedPlants >= calsNeeded) {
-					redistributedPlants -= calsNeeded;
-					sharesPlants.put(member, member.getCalsPlantsNeeded());
-				} else {
-					sharesPlants.put(member, sharesPlants.get(member) + redistributedPlants);
-					redistributedPlants = 0;
-				}
-			}
-		}
-		
-		// Add anything left to score
-		excessMeat += redistributedMeat;
-		excessPlants += redistributedPlants;
-		
-		// Feed each person their share
-		for(Person member: this.getMembers()) {
-			member.feed(sharesMeat.get(member), sharesPlants.get(member));
 		}
+		return redistributed;
 	}
 
 	/**
@@ -221,10 +281,15 @@ public class Group {
 	}
 
 	/**
-	 * Retrieves all the resources gathered by this group.
-	 * @return The total resources gathered.
+	 * Retrieves all the resources gathered by this group. The map is built from the tallies on each call, so it is meant for reporting results.
+	 * @return The total resources gathered, in the order they were first gathered.
 	 */
 	public Map<Resource, Integer> getTotalGathered() {
+		Map<Resource, Integer> totalGathered = new LinkedHashMap<Resource, Integer>();
+		for(int k = 0; k < numGathered; k++) {
+			int id = gatheredOrder[k];
+			totalGathered.put(resources[id], gathered[id]);
+		}
 		return totalGathered;
 	}
 
@@ -233,7 +298,44 @@ public class Group {
 	 * @param totalGathered - The total resources gathered to set.
 	 */
 	public void setTotalGathered(Map<Resource, Integer> totalGathered) {
-		this.totalGathered = totalGathered;
+		for(int k = 0; k < numGathered; k++) {
+			int id = gatheredOrder[k];
+			resources[id] = null;
+			gathered[id] = 0;
+		}
+		numGathered = 0;
+		for(Map.Entry<Resource, Integer> entry: totalGathered.entrySet()) {
+			tally(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	/**
+	 * Adds individuals of a resource to the total gathered by this group.
+	 * @param resource - Resource gathered.
+	 * @param count - Number of individuals gathered.
+	 */
+	public void tally(Resource resource, int count) {
+		int id = resource.getId();
+		if(id >= gathered.length) {
+			int length = Math.max(id + 1, gathered.length * 2);
+			resources = Arrays.copyOf(resources, length);
+			gathered = Arrays.copyOf(gathered, length);
+			gatheredOrder = Arrays.copyOf(gatheredOrder, length);
+		}
+		if(resources[id] == null) {
+			resources[id] = resource;
+			gatheredOrder[numGathered++] = id;
+		}
+		gathered[id] += count;
+	}
+	
+	/**
+	 * Retrieves the number of individuals of a resource gathered by this group.
+	 * @param resource - Resource to check.
+	 * @return Individuals gathered, 0 if none have been.
+	 */
+	public int getGathered(Resource resource) {
+		return resource.getId() < gathered.length ? gathered[resource.getId()] : 0;
 	}
 
 	/**
@@ -252,6 +354,14 @@ public class Group {
 		this.daysSurvived = daysSurvived;
 	}
 	
+	/**
+	 * Retrieves if any member of the group was deficient in calories on the day last fed.
+	 * @return True if at least one member did not get all the calories they needed.
+	 */
+	public boolean wasDeficientToday() {
+		return deficientToday;
+	}
+	
 	/**
 	 * Gets the max number of days a member of the group was deficient in calories.
 	 * @return Days a member was deficient in calories.
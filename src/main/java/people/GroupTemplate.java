@@ -0,0 +1,77 @@
+package main.java.people;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the layout of a group, its number of members and which of them forage in which party. The layout is worked out once,
+ * and every simulation builds its own fresh group from it in a single pass over the members.
+ * @author Kyle McVay
+ */
+public class GroupTemplate {
+	private int numPeople;
+	private boolean[] hunting;
+	// Members of party p are partyMembers[partyStarts[p]] to partyMembers[partyStarts[p + 1] - 1]
+	private int[] partyStarts;
+	private int[] partyMembers;
+	
+	/**
+	 * Constructs a new GroupTemplate by allocating parties that alternate between hunting and gathering, starting with hunting.
+	 * @param numPeople - Number of members of the group.
+	 * @param numParties - Number of parties.
+	 * @param partySize - Number of members of each party.
+	 * @throws IllegalArgumentException - Thrown if there are not enough members to allocate every party.
+	 */
+	public GroupTemplate(int numPeople, int numParties, int partySize) {
+		Group group = new Group();
+		for(int i = 0; i < numPeople; i++) {
+			group.getMembers().add(new Person());
+		}
+		boolean hunting = true;
+		for(int i = 0; i < numParties; i++) {
+			group.allocateParty(partySize, hunting);
+			hunting = !hunting;
+		}
+		
+		Map<Person, Integer> indices = new IdentityHashMap<Person, Integer>();
+		for(int m = 0; m < numPeople; m++) {
+			indices.put(group.getMembers().get(m), m);
+		}
+		this.numPeople = numPeople;
+		this.hunting = new boolean[numParties];
+		this.partyStarts = new int[numParties + 1];
+		this.partyMembers = new int[group.allocatedMembers()];
+		int k = 0;
+		for(int p = 0; p < numParties; p++) {
+			Party party = group.getParties().get(p);
+			this.hunting[p] = party.isHunting();
+			this.partyStarts[p] = k;
+			for(Person member: party.getMembers()) {
+				this.partyMembers[k++] = indices.get(member);
+			}
+		}
+		this.partyStarts[numParties] = k;
+	}
+	
+	/**
+	 * Builds a new group with fresh members and parties laid out like this template.
+	 * @return New group.
+	 */
+	public Group newGroup() {
+		List<Person> members = new ArrayList<Person>(numPeople);
+		for(int m = 0; m < numPeople; m++) {
+			members.add(new Person());
+		}
+		List<Party> parties = new ArrayList<Party>(hunting.length);
+		for(int p = 0; p < hunting.length; p++) {
+			Party party = new Party(hunting[p], new ArrayList<Person>(partyStarts[p + 1] - partyStarts[p]));
+			for(int k = partyStarts[p]; k < partyStarts[p + 1]; k++) {
+				party.addMember(members.get(partyMembers[k]));
+			}
+			parties.add(party);
+		}
+		return new Group(parties, members);
+	}
+}
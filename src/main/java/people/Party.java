@@ -1,9 +1,9 @@
 package main.java.people;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import main.java.resource.Resource;
 
@@ -17,7 +17,12 @@ public class Party {
 	private boolean active;
 	private boolean isGathering;
 	private int gatherTimeRemaining;
-	private Map<Resource, Double> obtained;
+	// Minutes foraged today by every member, kept once per party rather than on each member
+	private int minutesForaged;
+	private CarryLoad load;
+	private double maxWeight = Double.NaN;
+	// Group whose count of allocated members this party is part of, or null if no group allocated it
+	private Group group;
 	
 	/**
 	 * Initializes a new party with an empty list of members.
@@ -38,7 +43,7 @@ public class Party {
 		this.setActive(true);
 		this.setGathering(false);
 		this.setGatherTimeRemaining(0);
-		this.setObtained(new HashMap<Resource, Double>());
+		this.load = new CarryLoad(1);
 	}
 
 	/**
@@ -79,16 +84,33 @@ public class Party {
 	 */
 	public void addMember(Person newMember) {
 		newMember.setInParty(true);
+		newMember.setParty(this);
 		this.getMembers().add(newMember);
+		invalidateMaxWeight();
 	}
 	
 	/**
-	 * Removes a person from this hunting party.
+	 * Removes a person from this hunting party, and frees them in the group the party belongs to so they can be allocated again.
 	 * @param toRemove - Person to remove.
 	 */
 	public void removeMember(Person toRemove) {
+		if(!this.getMembers().remove(toRemove)) {
+			return;
+		}
 		toRemove.setInParty(false);
-		this.getMembers().remove(toRemove);
+		toRemove.setParty(null);
+		invalidateMaxWeight();
+		if(group != null) {
+			group.release(toRemove);
+		}
+	}
+	
+	/**
+	 * Sets the group this party belongs to.
+	 * @param group - Group that allocated this party.
+	 */
+	void setGroup(Group group) {
+		this.group = group;
 	}
 	
 	/**
@@ -152,47 +174,69 @@ public class Party {
 	 * @return Sum of the weights of all obtained resources.
 	 */
 	public double getCurrentWeight() {
-		double currentWeight = 0.0;
-		
-		for(Double weight: this.obtained.values()) {
-			currentWeight += weight.doubleValue();
-		}
-		
-		return currentWeight;
+		return load.getWeight(0);
 	}
 	
 	/**
-	 * Retrieves the maximum weight this party can carry.
+	 * Retrieves the maximum weight this party can carry. The weight is cached until invalidateMaxWeight is called.
 	 * @return Maximum weight limit of party.
 	 */
 	public double getMaxWeight() {
-		double maxWeight = 0.0;
-		for(Person person: this.members) {
-			maxWeight += person.getCarryWeight();
+		if(Double.isNaN(maxWeight)) {
+			double maxWeight = 0.0;
+			for(Person person: this.members) {
+				maxWeight += person.getCarryWeight();
+			}
+			this.maxWeight = maxWeight;
 		}
 		return maxWeight;
 	}
+	
+	/**
+	 * Discards the cached maximum weight. Must be called whenever the deficient streak of a member changes.
+	 */
+	public void invalidateMaxWeight() {
+		this.maxWeight = Double.NaN;
+	}
 
 	/**
 	 * Retrieves the current carried calories of this party.
 	 * @return The current calories of party.
 	 */
 	public double getCurrentCals() {
-		double currentCals = 0.0;
-		
-		for(Resource resource: this.obtained.keySet()) {
-			currentCals += this.obtained.get(resource) * (resource.getCalories() / resource.getWeight());
-		}
-		
-		return currentCals;
+		return load.getCalories(0);
+	}
+	
+	/**
+	 * Retrieves if this party carries a resource.
+	 * @param resource - Resource to check.
+	 * @return True if the resource has been obtained today.
+	 */
+	public boolean isCarrying(Resource resource) {
+		return load.isCarrying(0, resource.getId());
+	}
+	
+	/**
+	 * Retrieves the pounds of a resource this party carries.
+	 * @param resource - Resource to check.
+	 * @return Pounds carried, 0 if the resource is not carried.
+	 */
+	public double getCarried(Resource resource) {
+		return load.getCarried(0, resource.getId());
 	}
 
 	/**
 	 * Retrieves the obtained resources of this party.
-	 * @return The obtained resources.
+	 * @return A copy of the obtained resources, ordered by resource id.
 	 */
 	public Map<Resource, Double> getObtained() {
-		return this.obtained;
+		Map<Resource, Double> obtained = new TreeMap<Resource, Double>(Resource.BY_ID);
+		for(int r = 0; r < load.getNumResources(); r++) {
+			if(load.isCarrying(0, r)) {
+				obtained.put(load.getResource(r), load.getCarried(0, r));
+			}
+		}
+		return obtained;
 	}
 
 	/**
@@ -200,76 +244,55 @@ public class Party {
 	 * @param obtained - the obtained resources map to set.
 	 */
 	public void setObtained(Map<Resource, Double> obtained) {
-		this.obtained = obtained;
+		clearObtained();
+		for(Map.Entry<Resource, Double> entry: obtained.entrySet()) {
+			load.put(0, entry.getKey(), entry.getValue());
+		}
 	}
 	
 	/**
-	 * Adds an amount of a resource to the party's currently obtained resources.
-	 * @param resource - Resource to add.
-	 * @param amount - Pounds of resource to add.
+	 * Removes all obtained resources of this party.
 	 */
-	private void addResource(Resource resource, double amount) {
-		this.obtained.put(resource, this.obtained.getOrDefault(resource, 0.0) + amount);
+	public void clearObtained() {
+		load.clear(0);
 	}
 	
 	/**
-	 * Removes an amount of a resource from a party's currently obtained resources.
-	 * @param resource - Resource to remove.
-	 * @param amount - Pounds of resource to remove.
+	 * Adds a new kill to the carried resources. If it does not fit, less calorie dense resources are dropped to make room for it.
+	 * @param toAdd - Resource to add.
+	 * @param amount - Pounds of resource to add.
 	 */
-	private void removeResource(Resource resource, double amount) {
-		this.obtained.put(resource, this.obtained.getOrDefault(resource, 0.0) - amount);
-		if(this.obtained.get(resource) <= 0.0) {
-			this.obtained.remove(resource);
-		}
+	public void optimizeResources(Resource toAdd, double amount) {
+		load.add(0, toAdd, amount, this.getMaxWeight());
 	}
 	
 	/**
-	 * Optimizes the currently carried resources. Removes enough of the lowest cal/lb ratio resource to fit requested new resource.
-	 * @param toAdd - Resource to add.
-	 * @param amount - Pounds of resource to add.
+	 * Retrieves the number of minutes each member of this party has foraged today.
+	 * @return The minutes foraged.
 	 */
-	public void optimizeResources(Resource toAdd, double amount) {
-		if(this.getCurrentWeight() + amount < this.getMaxWeight()) {
-			addResource(toAdd, amount);
-			return;
-		}
-		
-		if(this.getCurrentWeight() < this.getMaxWeight()) {
-			addResource(toAdd, this.getMaxWeight() - this.getCurrentWeight());
-		}
-		
-		Resource lowestValue = toAdd;
-		
-		for(Resource resource: this.obtained.keySet()) {
-			if(resource.getCalories() / resource.getWeight() < lowestValue.getCalories() / lowestValue.getWeight()) {
-				lowestValue = resource;
-			}
-		}
-		
-		if(lowestValue.getName().equals(toAdd.getName())) {
-			addResource(toAdd, this.getMaxWeight() - this.getCurrentWeight());
-		} else {
-			removeResource(lowestValue, this.getCurrentWeight() + amount - this.getMaxWeight());
-			this.optimizeResources(toAdd, amount);
-		}
+	public int getMinutesForaged() {
+		return minutesForaged;
 	}
 	
 	/**
 	 * Advances the minutes foraged for each member by one minute.
 	 */
 	public void advanceMinutesForaged() {
-		for(Person person: this.getMembers()) {
-			person.setMinutesForaged(person.getMinutesForaged() + 1);
-		}
+		this.minutesForaged++;
+	}
+	
+	/**
+	 * Advances the minutes foraged for each member by several minutes at once.
+	 * @param minutes - Number of minutes foraged.
+	 */
+	public void advanceMinutesForaged(int minutes) {
+		this.minutesForaged += minutes;
 	}
 	
 	/**
 	 * Resets all member's minutes foraged to 0.
 	 */
 	public void newDay() {
-		for(Person person: this.getMembers()) {
-			person.setMinutesForaged(0);
-		}
+		this.minutesForaged = 0;
 	}
 }
@@ -8,7 +8,9 @@ public class Person {
 	private int daysDeficient;
 	private int deficientStreak;
 	private boolean inParty;
+	private Party party;
 	private int minutesForaged;
+	private int index = -1;// Position in the group's list of members, -1 if not known
 	
 	/** The maximum weight a person can carry */
 	public static int MAX_WEIGHT;
@@ -44,6 +46,16 @@ public class Person {
 		return this.deficientStreak;
 	}
 	
+	/**
+	 * Restores the deficiency record of this person, for example from a saved checkpoint.
+	 * @param daysDeficient - Number of days this person has been deficient in calories total.
+	 * @param deficientStreak - Number of days in a row this person has been deficient in calories.
+	 */
+	public void restoreDeficiency(int daysDeficient, int deficientStreak) {
+		this.daysDeficient = daysDeficient;
+		this.deficientStreak = deficientStreak;
+	}
+	
 	/**
 	 * Indicates that this person did not meet their calorie requirements from meat for a day.
 	 * @throws StarvationException Thrown if person has starved.
@@ -79,6 +91,38 @@ public class Person {
 		this.inParty = inParty;
 	}
 	
+	/**
+	 * Retrieves the party this person forages with.
+	 * @return The party, or null if person is not in a party.
+	 */
+	public Party getParty() {
+		return party;
+	}
+	
+	/**
+	 * Sets the party this person forages with. Minutes foraged by the party count as minutes foraged by this person.
+	 * @param party - The party, or null if person is not in a party.
+	 */
+	public void setParty(Party party) {
+		this.party = party;
+	}
+	
+	/**
+	 * Retrieves the position of this person in their group's list of members.
+	 * @return Index of member, or -1 if it is not known.
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Sets the position of this person in their group's list of members.
+	 * @param index - Index of member.
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+	
 	/**
 	 * Feeds this person. If not enough calories are given, adds a deficient day.
 	 * @param calsMeat - Calories of meat to feed.
@@ -102,15 +146,18 @@ public class Person {
 	}
 
 	/**
-	 * Retrieves the number of minutes this person has foraged.
+	 * Retrieves the number of minutes this person has foraged. Time foraged with a party is kept by the party and read from it here.
 	 * @return The minutes foraged.
 	 */
 	public int getMinutesForaged() {
+		if(party != null) {
+			return minutesForaged + party.getMinutesForaged();
+		}
 		return minutesForaged;
 	}
 
 	/**
-	 * Sets the number of minutes this person has foraged.
+	 * Sets the number of minutes this person has foraged outside of their party.
 	 * @param minutesForaged - The minutes foraged to set.
 	 */
 	public void setMinutesForaged(int minutesForaged) {
@@ -122,7 +169,8 @@ public class Person {
 	 * @return Calories needed.
 	 */
 	public double getCalsMeatNeeded() {
-		return ((getMinutesForaged() * CALS_BURNED_FORAGING) + (((24 * 60) - getMinutesForaged()) * CALS_BURNED_AT_REST)) * MEAT_RATIO;
+		int minutesForaged = getMinutesForaged();
+		return ((minutesForaged * CALS_BURNED_FORAGING) + (((24 * 60) - minutesForaged) * CALS_BURNED_AT_REST)) * MEAT_RATIO;
 	}
 	
 	/**
@@ -130,6 +178,7 @@ public class Person {
 	 * @return Calories needed.
 	 */
 	public double getCalsPlantsNeeded() {
-		return ((getMinutesForaged() * CALS_BURNED_FORAGING) + (((24 * 60) - getMinutesForaged()) * CALS_BURNED_AT_REST)) * (1 - MEAT_RATIO);
+		int minutesForaged = getMinutesForaged();
+		return ((minutesForaged * CALS_BURNED_FORAGING) + (((24 * 60) - minutesForaged) * CALS_BURNED_AT_REST)) * (1 - MEAT_RATIO);
 	}
 }
@@ -0,0 +1,96 @@
+package main.java.resource;
+
+/**
+ * This class represents a precompiled Walker/Vose alias table. It samples an index from a fixed discrete distribution in constant time using a single random number.
+ * @author Kyle McVay
+ */
+public class AliasTable {
+	private double[] probability;
+	private int[] alias;
+	
+	/**
+	 * Compiles a new alias table for the given weights.
+	 * @param weights - Relative weight of each index. Weights must not be negative and must not all be 0.
+	 * @throws IllegalArgumentException - Thrown if the weights do not form a distribution.
+	 */
+	public AliasTable(double[] weights) {
+		int n = weights.length;
+		double total = 0;
+		for(double weight: weights) {
+			if(weight < 0 || Double.isNaN(weight)) {
+				throw new IllegalArgumentException("Weights must not be negative");
+			}
+			total += weight;
+		}
+		if(n == 0 || total <= 0) {
+			throw new IllegalArgumentException("Weights must not all be 0");
+		}
+		
+		this.probability = new double[n];
+		this.alias = new int[n];
+		
+		// Scale weights so the average is 1, then pair each under-full column with an over-full one
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallCount = 0;
+		int largeCount = 0;
+		for(int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / total;
+			if(scaled[i] < 1) {
+				small[smallCount++] = i;
+			} else {
+				large[largeCount++] = i;
+			}
+		}
+		while(smallCount > 0 && largeCount > 0) {
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+			probability[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if(scaled[more] < 1) {
+				small[smallCount++] = more;
+			} else {
+				large[largeCount++] = more;
+			}
+		}
+		// Anything left over is full up to rounding error
+		while(largeCount > 0) {
+			int more = large[--largeCount];
+			probability[more] = 1;
+			alias[more] = more;
+		}
+		while(smallCount > 0) {
+			int less = small[--smallCount];
+			probability[less] = 1;
+			alias[less] = less;
+		}
+	}
+	
+	/**
+	 * Samples an index from the distribution.
+	 * @param random - Uniform random number in [0, 1).
+	 * @return Sampled index.
+	 */
+	public int sample(double random) {
+		double scaled = random * probability.length;
+		int column = (int)scaled;
+		if(column >= probability.length) {
+			column = probability.length - 1;
+		}
+		if(scaled - column < probability[column]) {
+			return column;
+		} else {
+			return alias[column];
+		}
+	}
+	
+	/**
+	 * Retrieves the number of indices in this table.
+	 * @return Size of table.
+	 */
+	public int size() {
+		return probability.length;
+	}
+}
@@ -0,0 +1,139 @@
+package main.java.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents encounter rates that change with the season and the time of day, compiled into one sampler per season and period at
+ * load time. Seasons last a fixed number of days and repeat in order. Each day is split into periods of a fixed number of minutes, the last
+ * of which lasts until the end of the day. Simulations look up the samplers of the current day once and index them by period, so a schedule
+ * costs nothing more per minute than a single sampler.
+ * @author Kyle McVay
+ */
+public class EncounterSchedule {
+	private int seasonLength;
+	private int[][][] encounterRates;
+	private ResourceSampler[][] animals;
+	private ResourceSampler[][] plants;
+	// Period of each minute of the day, and the first minute after each period
+	private int[] periods;
+	private int[] periodEnds;
+	
+	/**
+	 * Compiles a new EncounterSchedule.
+	 * @param resources - All resources.
+	 * @param encounterRates - Encounter rate of each resource, indexed by resource, season then period. Every resource must have the same number
+	 * of seasons and periods. A rate of 0 means the resource cannot be found.
+	 * @param seasonLength - Number of days in each season, 0 if there is a single season.
+	 * @param periodLength - Number of minutes in each period, 0 if there is a single period.
+	 * @param minutesPerDay - Number of minutes foraged each day.
+	 */
+	public EncounterSchedule(List<Resource> resources, int[][][] encounterRates, int seasonLength, int periodLength, int minutesPerDay) {
+		int numSeasons = encounterRates.length == 0 ? 1 : encounterRates[0].length;
+		int numPeriods = encounterRates.length == 0 ? 1 : encounterRates[0][0].length;
+		this.seasonLength = seasonLength;
+		this.encounterRates = encounterRates;
+		this.animals = new ResourceSampler[numSeasons][numPeriods];
+		this.plants = new ResourceSampler[numSeasons][numPeriods];
+		for(int s = 0; s < numSeasons; s++) {
+			for(int p = 0; p < numPeriods; p++) {
+				animals[s][p] = compile(resources, encounterRates, s, p, true);
+				plants[s][p] = compile(resources, encounterRates, s, p, false);
+			}
+		}
+		
+		this.periods = new int[minutesPerDay];
+		this.periodEnds = new int[numPeriods];
+		for(int m = 0; m < minutesPerDay; m++) {
+			periods[m] = periodLength == 0 ? 0 : Math.min(m / periodLength, numPeriods - 1);
+		}
+		for(int p = 0; p < numPeriods; p++) {
+			periodEnds[p] = p == numPeriods - 1 ? minutesPerDay : (p + 1) * periodLength;
+		}
+	}
+	
+	/**
+	 * Compiles the sampler of the animals or the plants for one season and period.
+	 * @param resources - All resources.
+	 * @param encounterRates - Encounter rate of each resource, indexed by resource, season then period.
+	 * @param season - Index of season.
+	 * @param period - Index of period.
+	 * @param animal - True to compile the animals, false to compile the plants.
+	 * @return Compiled sampler.
+	 */
+	private static ResourceSampler compile(List<Resource> resources, int[][][] encounterRates, int season, int period, boolean animal) {
+		List<Resource> matching = new ArrayList<Resource>();
+		int[] rates = new int[resources.size()];
+		for(Resource resource: resources) {
+			if(resource.isAnimal() == animal) {
+				rates[matching.size()] = encounterRates[resource.getId()][season][period];
+				matching.add(resource);
+			}
+		}
+		return new ResourceSampler(matching, rates);
+	}
+	
+	/**
+	 * Retrieves the animal samplers of a day.
+	 * @param day - Day of simulation.
+	 * @return Sampler of each period of the day's season.
+	 */
+	public ResourceSampler[] getAnimals(int day) {
+		return animals[season(day)];
+	}
+	
+	/**
+	 * Retrieves the plant samplers of a day.
+	 * @param day - Day of simulation.
+	 * @return Sampler of each period of the day's season.
+	 */
+	public ResourceSampler[] getPlants(int day) {
+		return plants[season(day)];
+	}
+	
+	/**
+	 * Retrieves the encounter rate of a resource in one period of a day.
+	 * @param resource - Resource to look up.
+	 * @param day - Day of simulation.
+	 * @param period - Index of period.
+	 * @return Average minutes between sightings, or 0 if the resource cannot be found.
+	 */
+	public int getEncounterRate(Resource resource, int day, int period) {
+		return encounterRates[resource.getId()][season(day)][period];
+	}
+	
+	/**
+	 * Retrieves the number of periods each day is split into.
+	 * @return Number of periods.
+	 */
+	public int getNumPeriods() {
+		return periodEnds.length;
+	}
+	
+	/**
+	 * Retrieves the period a minute falls in.
+	 * @param minute - Minute of the day.
+	 * @return Index of period.
+	 */
+	public int period(int minute) {
+		return periods[minute];
+	}
+	
+	/**
+	 * Retrieves the end of the period a minute falls in.
+	 * @param minute - Minute of the day.
+	 * @return First minute of the next period, or the number of minutes per day if the minute is in the last period.
+	 */
+	public int periodEnd(int minute) {
+		return periodEnds[periods[minute]];
+	}
+	
+	/**
+	 * Retrieves the season a day falls in.
+	 * @param day - Day of simulation.
+	 * @return Index of season.
+	 */
+	private int season(int day) {
+		return seasonLength == 0 ? 0 : (day / seasonLength) % animals.length;
+	}
+}
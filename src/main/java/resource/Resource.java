@@ -1,10 +1,24 @@
 package main.java.resource;
 
+import java.util.Comparator;
+
 /**
  * This class represents a plant or animal that a hunting/gathering party may encounter while away from camp.
  * @author Kyle McVay
  */
 public class Resource {
+	/** Orders resources by id */
+	public static final Comparator<Resource> BY_ID = new Comparator<Resource>() {
+		/**
+		 * Compares the ids of two resources.
+		 */
+		@Override
+		public int compare(Resource a, Resource b) {
+			return Integer.compare(a.getId(), b.getId());
+		}
+	};
+	
+	private int id;
 	private int calories;
 	private boolean animal;
 	private int gatherTime;
@@ -13,10 +27,13 @@ public class Resource {
 	private double weight;
 	private String name;
 	private double successRate;
+	private int stock;
+	private double regeneration;
 	
 	/**
 	 * Initializes a new resource with the given values.
 	 * 
+	 * @param id - Dense id of resource, its index in the configured list of resources.
 	 * @param calories - Number of calories a resource is worth
 	 * @param animal - True if resource is an animal, false if resource is a plant
 	 * @param gatherTime - Time it takes to gather this resource
@@ -26,7 +43,27 @@ public class Resource {
 	 * @param name - Name of resource.
 	 * @param successRate - Chance of successful gather of resource.
 	 */
-	public Resource(int calories, boolean animal, int gatherTime, int processTime, int encounterRate, double weight, String name, double successRate) {
+	public Resource(int id, int calories, boolean animal, int gatherTime, int processTime, int encounterRate, double weight, String name, double successRate) {
+		this(id, calories, animal, gatherTime, processTime, encounterRate, weight, name, successRate, 0, 0);
+	}
+	
+	/**
+	 * Initializes a new resource with the given values and a finite, regenerating stock.
+	 * 
+	 * @param id - Dense id of resource, its index in the configured list of resources.
+	 * @param calories - Number of calories a resource is worth
+	 * @param animal - True if resource is an animal, false if resource is a plant
+	 * @param gatherTime - Time it takes to gather this resource
+	 * @param processTime - Time it takes to process this resource
+	 * @param encounterRate - Number of minutes it takes on average to find this resource at full stock.
+	 * @param weight - Weight of resource.
+	 * @param name - Name of resource.
+	 * @param successRate - Chance of successful gather of resource.
+	 * @param stock - Number of individuals when the stock is full, 0 if the stock is unlimited.
+	 * @param regeneration - Fraction of the missing individuals that regrow each day.
+	 */
+	public Resource(int id, int calories, boolean animal, int gatherTime, int processTime, int encounterRate, double weight, String name, double successRate, int stock, double regeneration) {
+		this.id = id;
 		this.calories = calories;
 		this.animal = animal;
 		this.gatherTime = gatherTime;
@@ -35,6 +72,16 @@ public class Resource {
 		this.weight = weight;
 		this.name = name;
 		this.successRate = successRate;
+		this.stock = stock;
+		this.regeneration = regeneration;
+	}
+
+	/**
+	 * Retrieves the id of this resource.
+	 * @return The id, from 0 to the number of configured resources - 1.
+	 */
+	public int getId() {
+		return id;
 	}
 
 	/**
@@ -96,7 +143,7 @@ public class Resource {
 	/**
 	 * Checks for equality between this resource and obj.
 	 * @param obj - Object to test against.
-	 * @return True if obj is a resource and names are equal.
+	 * @return True if obj is a resource and ids and names are equal.
 	 */
 	@Override
 	public boolean equals(Object obj) {
@@ -104,12 +151,21 @@ public class Resource {
 			return false;
 		}
 		Resource other = (Resource)obj;
-		if(other.getName().equals(name)) {
+		if(other.getId() == id && other.getName().equals(name)) {
 			return true;
 		} else {
 			return false;
 		}
 	}
+	
+	/**
+	 * Retrieves the hash code of this resource, consistent with equals.
+	 * @return The id of this resource.
+	 */
+	@Override
+	public int hashCode() {
+		return id;
+	}
 
 	/**
 	 * Retrieves the success rate of gathering this resource.
@@ -118,4 +174,20 @@ public class Resource {
 	public double getSuccessRate() {
 		return successRate;
 	}
+
+	/**
+	 * Retrieves the size of this resource's stock. Each individual gathered lowers the encounter rate in proportion until the stock regrows.
+	 * @return The number of individuals when the stock is full, 0 if the stock is unlimited.
+	 */
+	public int getStock() {
+		return stock;
+	}
+
+	/**
+	 * Retrieves how fast this resource's stock regrows.
+	 * @return The fraction of the missing individuals that regrow each day.
+	 */
+	public double getRegeneration() {
+		return regeneration;
+	}
 }
@@ -0,0 +1,113 @@
+package main.java.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents the resources a hunting or gathering party may encounter, compiled into alias tables once at load time.
+ * Each minute a resource is encountered with chance 1 / encounterRate, independently of the other resources.
+ * @author Kyle McVay
+ */
+public class ResourceSampler {
+	private Resource[] resources;
+	private AliasTable perMinute;
+	private AliasTable perEncounter;
+	private double encounterChance;
+	
+	/**
+	 * Compiles a new sampler for the given resources, at their own encounter rates.
+	 * @param resources - Resources that may be encountered.
+	 */
+	public ResourceSampler(List<Resource> resources) {
+		this(resources, encounterRates(resources));
+	}
+	
+	/**
+	 * Compiles a new sampler for the given resources, at the given encounter rates.
+	 * @param resources - Resources that may be encountered.
+	 * @param encounterRates - Average minutes between sightings of each resource, or 0 if it cannot be found.
+	 */
+	public ResourceSampler(List<Resource> resources, int[] encounterRates) {
+		this.resources = resources.toArray(new Resource[resources.size()]);
+		
+		double total = 0;
+		double[] chances = new double[this.resources.length + 1];
+		for(int i = 0; i < this.resources.length; i++) {
+			chances[i] = encounterRates[i] == 0 ? 0 : 1.0 / encounterRates[i];
+			total += chances[i];
+		}
+		// The last outcome is finding nothing. If the chances add up to more than 1, something is always found.
+		chances[this.resources.length] = Math.max(0, 1 - total);
+		this.encounterChance = Math.min(total, 1);
+		
+		// Nothing can be found if every resource is out of season
+		if(total > 0) {
+			this.perMinute = new AliasTable(chances);
+			double[] encountered = new double[this.resources.length];
+			System.arraycopy(chances, 0, encountered, 0, encountered.length);
+			this.perEncounter = new AliasTable(encountered);
+		}
+	}
+	
+	/**
+	 * Retrieves the encounter rate of each resource.
+	 * @param resources - Resources to look up.
+	 * @return Encounter rates, in the same order as resources.
+	 */
+	private static int[] encounterRates(List<Resource> resources) {
+		int[] rates = new int[resources.size()];
+		for(int i = 0; i < rates.length; i++) {
+			rates[i] = resources.get(i).getEncounterRate();
+		}
+		return rates;
+	}
+	
+	/**
+	 * Compiles a sampler for the animals or the plants in the given list of resources.
+	 * @param resources - All resources.
+	 * @param animal - True to compile the animals, false to compile the plants.
+	 * @return Compiled sampler.
+	 */
+	public static ResourceSampler of(List<Resource> resources, boolean animal) {
+		List<Resource> matching = new ArrayList<Resource>();
+		for(Resource resource: resources) {
+			if(resource.isAnimal() == animal) {
+				matching.add(resource);
+			}
+		}
+		return new ResourceSampler(matching);
+	}
+	
+	/**
+	 * Samples the resource found in one minute of searching.
+	 * @param random - Uniform random number in [0, 1).
+	 * @return Resource found, or null if nothing was found.
+	 */
+	public Resource sample(double random) {
+		if(perMinute == null) {
+			return null;
+		}
+		int index = perMinute.sample(random);
+		if(index == resources.length) {
+			return null;
+		}
+		return resources[index];
+	}
+	
+	/**
+	 * Samples the resource found, given that a resource was found.
+	 * @param random - Uniform random number in [0, 1).
+	 * @return Resource found.
+	 */
+	public Resource sampleEncountered(double random) {
+		return resources[perEncounter.sample(random)];
+	}
+	
+	/**
+	 * Retrieves the chance of finding any resource in one minute of searching.
+	 * @return Chance per minute of an encounter.
+	 */
+	public double getEncounterChance() {
+		return encounterChance;
+	}
+}
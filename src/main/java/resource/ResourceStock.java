@@ -0,0 +1,208 @@
+package main.java.resource;
+
+import java.util.List;
+
+/**
+ * This class represents the finite stocks of resources a group forages from over one simulation. Each resource with a stock is found at its
+ * scheduled encounter rate scaled by the fraction of its stock remaining. Every individual gathered lowers the stock by one, and each night the
+ * stock regrows by a fraction of what is missing.
+ * The encounter chances of the animals and of the plants are kept in one sum tree per period of the day, so gathering an individual updates
+ * a handful of weights rather than compiling new samplers, and sampling stays O(log n) in the number of resources.
+ * A stock is mutable state of one simulation and must not be shared between simulations.
+ * @author Kyle McVay
+ */
+public class ResourceStock {
+	private static final int ANIMALS = 0;
+	private static final int PLANTS = 1;
+	
+	private EncounterSchedule schedule;
+	// Resources of each type, in id order, and the position of each resource id among its type
+	private Resource[][] resources;
+	private int[] slots;
+	private double[] remaining;
+	// Encounter chance of each resource of a type in each period of the current day
+	private SumTree[][] trees;
+	private int day;
+	
+	/**
+	 * Constructs a new ResourceStock with every stock full.
+	 * @param resources - All resources, indexed by id.
+	 * @param schedule - Encounter rates of every resource when its stock is full.
+	 */
+	public ResourceStock(List<Resource> resources, EncounterSchedule schedule) {
+		this.schedule = schedule;
+		int numAnimals = 0;
+		for(Resource resource: resources) {
+			if(resource.isAnimal()) {
+				numAnimals++;
+			}
+		}
+		this.resources = new Resource[][] {new Resource[numAnimals], new Resource[resources.size() - numAnimals]};
+		this.slots = new int[resources.size()];
+		this.remaining = new double[resources.size()];
+		int[] counts = new int[2];
+		for(Resource resource: resources) {
+			int type = type(resource.isAnimal());
+			slots[resource.getId()] = counts[type];
+			this.resources[type][counts[type]++] = resource;
+			remaining[resource.getId()] = resource.getStock();
+		}
+		
+		this.trees = new SumTree[2][schedule.getNumPeriods()];
+		for(int type = 0; type < 2; type++) {
+			for(int p = 0; p < schedule.getNumPeriods(); p++) {
+				trees[type][p] = new SumTree(this.resources[type].length);
+			}
+		}
+		startDay(0);
+	}
+	
+	/**
+	 * Checks if any resource has a finite stock.
+	 * @param resources - All resources.
+	 * @return True if a stock has to be kept.
+	 */
+	public static boolean isLimited(List<Resource> resources) {
+		for(Resource resource: resources) {
+			if(resource.getStock() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Compiles the encounter chances of a day's season at the current stocks.
+	 * @param day - Day of simulation.
+	 */
+	public void startDay(int day) {
+		this.day = day;
+		for(int type = 0; type < 2; type++) {
+			double[] chances = new double[resources[type].length];
+			for(int p = 0; p < trees[type].length; p++) {
+				for(int slot = 0; slot < chances.length; slot++) {
+					chances[slot] = encounterChance(resources[type][slot], p);
+				}
+				trees[type][p].reset(chances);
+			}
+		}
+	}
+	
+	/**
+	 * Regrows every stock by its regeneration rate, at the end of a day.
+	 */
+	public void endDay() {
+		for(Resource[] ofType: resources) {
+			for(Resource resource: ofType) {
+				int id = resource.getId();
+				remaining[id] += resource.getRegeneration() * (resource.getStock() - remaining[id]);
+			}
+		}
+	}
+	
+	/**
+	 * Removes one individual of a resource from its stock.
+	 * @param resource - Resource gathered.
+	 */
+	public void harvest(Resource resource) {
+		if(resource.getStock() == 0) {
+			return;
+		}
+		int id = resource.getId();
+		remaining[id] = Math.max(0, remaining[id] - 1);
+		SumTree[] periods = trees[type(resource.isAnimal())];
+		for(int p = 0; p < periods.length; p++) {
+			periods[p].set(slots[id], encounterChance(resource, p));
+		}
+	}
+	
+	/**
+	 * Retrieves the chance of finding any animal or any plant in one minute of searching.
+	 * @param animal - True for animals, false for plants.
+	 * @param minute - Minute of the day.
+	 * @return Chance per minute of an encounter.
+	 */
+	public double getEncounterChance(boolean animal, int minute) {
+		return Math.min(tree(animal, minute).total(), 1);
+	}
+	
+	/**
+	 * Samples the resource found in one minute of searching.
+	 * @param animal - True to search for animals, false for plants.
+	 * @param minute - Minute of the day.
+	 * @param random - Uniform random number in [0, 1).
+	 * @return Resource found, or null if nothing was found.
+	 */
+	public Resource sample(boolean animal, int minute, double random) {
+		SumTree tree = tree(animal, minute);
+		double total = tree.total();
+		// If the chances add up to more than 1, something is always found
+		double target = random * Math.max(total, 1);
+		if(target >= total) {
+			return null;
+		}
+		return resources[type(animal)][tree.find(target)];
+	}
+	
+	/**
+	 * Samples the resource found, given that a resource was found.
+	 * @param animal - True if an animal was found, false if a plant was.
+	 * @param minute - Minute of the day.
+	 * @param random - Uniform random number in [0, 1).
+	 * @return Resource found.
+	 */
+	public Resource sampleEncountered(boolean animal, int minute, double random) {
+		SumTree tree = tree(animal, minute);
+		return resources[type(animal)][tree.find(random * tree.total())];
+	}
+	
+	/**
+	 * Retrieves the remaining stock of every resource.
+	 * @return Individuals remaining, indexed by resource id. Resources without a stock have 0.
+	 */
+	public double[] getRemaining() {
+		return remaining.clone();
+	}
+	
+	/**
+	 * Replaces the remaining stock of every resource. The encounter chances follow from the next day started.
+	 * @param remaining - Individuals remaining, indexed by resource id.
+	 */
+	public void setRemaining(double[] remaining) {
+		System.arraycopy(remaining, 0, this.remaining, 0, remaining.length);
+	}
+	
+	/**
+	 * Calculates the current chance per minute of encountering a resource.
+	 * @param resource - Resource to look up.
+	 * @param period - Index of period of the current day.
+	 * @return Scheduled chance, scaled by the fraction of the stock remaining.
+	 */
+	private double encounterChance(Resource resource, int period) {
+		int rate = schedule.getEncounterRate(resource, day, period);
+		if(rate == 0) {
+			return 0;
+		}
+		double chance = 1.0 / rate;
+		return resource.getStock() == 0 ? chance : chance * remaining[resource.getId()] / resource.getStock();
+	}
+	
+	/**
+	 * Retrieves the sum tree of animals or plants for a minute.
+	 * @param animal - True for animals, false for plants.
+	 * @param minute - Minute of the day.
+	 * @return Sum tree of the minute's period.
+	 */
+	private SumTree tree(boolean animal, int minute) {
+		return trees[type(animal)][schedule.period(minute)];
+	}
+	
+	/**
+	 * Retrieves the index of the animals or the plants.
+	 * @param animal - True for animals, false for plants.
+	 * @return Index of type.
+	 */
+	private static int type(boolean animal) {
+		return animal ? ANIMALS : PLANTS;
+	}
+}
@@ -0,0 +1,101 @@
+package main.java.resource;
+
+/**
+ * This class represents a Fenwick tree of non-negative weights. It changes a single weight and samples an index in proportion to the weights
+ * in O(log n) time, so a distribution whose weights change one at a time never has to be compiled again.
+ * @author Kyle McVay
+ */
+public class SumTree {
+	private int size;
+	private double[] weights;
+	// tree[i] holds the sum of weights (i - lowest set bit of i) to i - 1
+	private double[] tree;
+	private double total;
+	private int highestStep;
+	
+	/**
+	 * Constructs a new SumTree with every weight 0.
+	 * @param size - Number of weights.
+	 */
+	public SumTree(int size) {
+		this.size = size;
+		this.weights = new double[size];
+		this.tree = new double[size + 1];
+		this.highestStep = size == 0 ? 0 : Integer.highestOneBit(size);
+	}
+	
+	/**
+	 * Replaces every weight at once, in O(n) time.
+	 * @param weights - New weights, at least size of them.
+	 */
+	public void reset(double[] weights) {
+		System.arraycopy(weights, 0, this.weights, 0, size);
+		total = 0;
+		for(int i = 1; i <= size; i++) {
+			tree[i] = weights[i - 1];
+			total += weights[i - 1];
+		}
+		for(int i = 1; i <= size; i++) {
+			int parent = i + (i & -i);
+			if(parent <= size) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+	
+	/**
+	 * Changes one weight.
+	 * @param index - Index of weight.
+	 * @param weight - New weight, at least 0.
+	 */
+	public void set(int index, double weight) {
+		double delta = weight - weights[index];
+		weights[index] = weight;
+		total += delta;
+		for(int i = index + 1; i <= size; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+	
+	/**
+	 * Retrieves one weight.
+	 * @param index - Index of weight.
+	 * @return The weight.
+	 */
+	public double get(int index) {
+		return weights[index];
+	}
+	
+	/**
+	 * Retrieves the sum of every weight.
+	 * @return Total weight.
+	 */
+	public double total() {
+		return Math.max(0, total);
+	}
+	
+	/**
+	 * Finds the index whose share of the total weight contains a target, the first index whose running sum of weights exceeds it.
+	 * @param target - Target in [0, total).
+	 * @return Index found. Rounding never leads to an index with weight 0 while any weight is positive.
+	 */
+	public int find(double target) {
+		int position = 0;
+		double remaining = target;
+		for(int step = highestStep; step > 0; step >>= 1) {
+			int next = position + step;
+			if(next <= size && tree[next] <= remaining) {
+				position = next;
+				remaining -= tree[next];
+			}
+		}
+		// Step back from past the end, or from a weight of 0 reached through rounding
+		if(position >= size) {
+			position = size - 1;
+		}
+		while(position > 0 && weights[position] <= 0) {
+			position--;
+		}
+		return position;
+	}
+}
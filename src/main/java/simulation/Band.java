@@ -0,0 +1,116 @@
+package main.java.simulation;
+
+import java.util.Comparator;
+
+import main.java.resource.ResourceStock;
+
+/**
+ * This class represents one band foraging on a tiled landscape: its own group and simulation, the tile it camps on and the random stream
+ * deciding where it moves. A band is advanced by one region at a time, and is handed between regions only at day boundaries.
+ * @author Kyle McVay
+ */
+public class Band {
+	/** Orders bands by id */
+	public static final Comparator<Band> BY_ID = new Comparator<Band>() {
+		/**
+		 * Compares the ids of two bands.
+		 */
+		@Override
+		public int compare(Band a, Band b) {
+			return Integer.compare(a.getId(), b.getId());
+		}
+	};
+	
+	private int id;
+	private Simulation simulation;
+	private RandomStream random;
+	private int tile;
+	private int daysSurvived;
+	private boolean starved;
+	
+	/**
+	 * Constructs a new Band.
+	 * @param id - Index of band.
+	 * @param simulation - Simulation of the band's group.
+	 * @param random - Random stream deciding where the band moves.
+	 * @param tile - Tile the band starts on.
+	 */
+	public Band(int id, Simulation simulation, RandomStream random, int tile) {
+		this.id = id;
+		this.simulation = simulation;
+		this.random = random;
+		this.tile = tile;
+	}
+	
+	/**
+	 * Retrieves the id of this band.
+	 * @return Index of band.
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/**
+	 * Retrieves the tile this band camps on.
+	 * @return Index of tile.
+	 */
+	public int getTile() {
+		return tile;
+	}
+	
+	/**
+	 * Moves this band to another tile.
+	 * @param tile - Index of tile.
+	 */
+	public void setTile(int tile) {
+		this.tile = tile;
+	}
+	
+	/**
+	 * Retrieves the random stream deciding where this band moves.
+	 * @return Random stream.
+	 */
+	public RandomStream getRandom() {
+		return random;
+	}
+	
+	/**
+	 * Retrieves if this band's group has starved.
+	 * @return True if starved.
+	 */
+	public boolean isStarved() {
+		return starved;
+	}
+	
+	/**
+	 * Simulates one day of this band foraging from its tile.
+	 * @param day - Day to simulate.
+	 * @param stock - Stock of the band's tile, or null if stocks are unlimited.
+	 * @return False if the band's group starved.
+	 */
+	public boolean runDay(int day, ResourceStock stock) {
+		simulation.setStock(stock);
+		if(!simulation.runDay(day)) {
+			starved = true;
+			return false;
+		}
+		daysSurvived = day + 1;
+		return true;
+	}
+	
+	/**
+	 * Checks if any member of this band was deficient on the last day simulated.
+	 * @return True if the band went short of food.
+	 */
+	public boolean wentShort() {
+		return simulation.getGroup().wasDeficientToday();
+	}
+	
+	/**
+	 * Scores this band after the last day.
+	 * @return Score of the band's group, 0 if it starved.
+	 */
+	public double score() {
+		return simulation.score(daysSurvived);
+	}
+}
@@ -0,0 +1,83 @@
+package main.java.simulation;
+
+import java.util.List;
+import java.util.Map;
+
+import main.java.people.Group;
+import main.java.people.Person;
+import main.java.resource.Resource;
+import main.java.resource.ResourceStock;
+
+/**
+ * This class represents the state of a simulation at the end of a day: every member's deficiency record, the group's stores and tallies,
+ * the remaining stock of each resource and the position of the random stream. Parties carry nothing and have foraged no minutes between days, so they need no state.
+ * A checkpoint is read-only once taken and may be shared between threads; each simulation resumed from it copies the state into its own group.
+ * @author Kyle McVay
+ */
+public class Checkpoint {
+	private int day;
+	private int[] daysDeficient;
+	private int[] deficientStreak;
+	private double excessMeat;
+	private double excessPlants;
+	private Map<Resource, Integer> totalGathered;
+	private RandomStream random;
+	private double[] stock;
+	
+	/**
+	 * Constructs a new Checkpoint of a group.
+	 * @param day - Number of days simulated.
+	 * @param group - Group to save.
+	 * @param random - Random stream of the simulation. It is copied, so the simulation may keep drawing from it.
+	 * @param stock - Stock of resources of the simulation, or null if stocks are unlimited.
+	 */
+	public Checkpoint(int day, Group group, RandomStream random, ResourceStock stock) {
+		this.day = day;
+		List<Person> members = group.getMembers();
+		this.daysDeficient = new int[members.size()];
+		this.deficientStreak = new int[members.size()];
+		for(int m = 0; m < members.size(); m++) {
+			daysDeficient[m] = members.get(m).getDaysDeficient();
+			deficientStreak[m] = members.get(m).getDeficientStreak();
+		}
+		this.excessMeat = group.getExcessMeat();
+		this.excessPlants = group.getExcessPlants();
+		this.totalGathered = group.getTotalGathered();
+		this.random = random.copy();
+		this.stock = stock == null ? null : stock.getRemaining();
+	}
+	
+	/**
+	 * Retrieves the number of days simulated before this checkpoint.
+	 * @return Day the simulation resumes from.
+	 */
+	public int getDay() {
+		return day;
+	}
+	
+	/**
+	 * Retrieves the random stream to resume from.
+	 * @return A new copy of the stream at the checkpoint's position.
+	 */
+	public RandomStream getRandom() {
+		return random.copy();
+	}
+	
+	/**
+	 * Restores this checkpoint into a fresh group with the same layout as the group it was taken from.
+	 * @param group - Group to restore into.
+	 * @param stock - Stock of resources to restore into, or null if stocks are unlimited.
+	 */
+	public void restore(Group group, ResourceStock stock) {
+		List<Person> members = group.getMembers();
+		for(int m = 0; m < members.size(); m++) {
+			members.get(m).restoreDeficiency(daysDeficient[m], deficientStreak[m]);
+		}
+		group.setExcessMeat(excessMeat);
+		group.setExcessPlants(excessPlants);
+		group.setTotalGathered(totalGathered);
+		if(stock != null) {
+			stock.setRemaining(this.stock);
+		}
+	}
+}
@@ -0,0 +1,513 @@
+package main.java.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import main.java.people.GroupTemplate;
+import main.java.resource.EncounterSchedule;
+import main.java.resource.Resource;
+import main.java.resource.ResourceStock;
+
+/**
+ * This class represents the configuration of a simulation run. It is read once from the configuration file and is shared read-only between simulations.
+ * @author Kyle McVay
+ */
+public class Configuration {
+	// Fewest days in a steady state window, so two windows hold enough days to tell a trend from noise
+	private static final int MIN_STEADY_STATE_WINDOW = 10;
+	
+	private int numPeople;
+	private int partySize;
+	private int daysToRun;// Number of days to simulate
+	private int hoursToRun;// Number of hours to allow for hunting/gathering each day
+	private int numParties;
+	private int numGenerations;
+	private int numIndividuals;
+	private boolean maximize;
+	private int threads;
+	private boolean eventDriven;
+	private long seed;
+	private boolean prune;
+	private boolean populationBackend;
+	private int minReplications;
+	private int maxReplications;
+	private double confidence;
+	private boolean encounterTape;
+	private boolean tapePerGeneration;
+	private String tapeFile;
+	private int forkDay;
+	private int steadyStateWindow;
+	private double steadyStateTolerance;
+	private List<Resource> resources;
+	private EncounterSchedule encounterSchedule;
+	private boolean stockLimited;
+	private int numBands;
+	private int landscapeWidth;
+	private int landscapeHeight;
+	private int regions;
+	private int[] hiddenLayers;
+	private int validationRuns;
+	private GroupTemplate groupTemplate;
+	
+	/**
+	 * Constructs a new Configuration from the given configuration file contents.
+	 * @param json - Parsed configuration file.
+	 */
+	public Configuration(JSONObject json) {
+		this.numPeople = json.getInt("numPeople");
+		this.partySize = json.getInt("partySize");
+		this.daysToRun = json.getInt("daysToRun");
+		this.hoursToRun = json.getInt("hoursToRun");
+		this.numParties = json.getInt("numParties");
+		this.numGenerations = json.getInt("numGenerations");
+		this.numIndividuals = json.getInt("numIndividuals");
+		this.maximize = json.getBoolean("maximize");
+		this.threads = json.optInt("threads", Runtime.getRuntime().availableProcessors());
+		if(this.threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+		this.eventDriven = json.optBoolean("eventDriven", false);
+		this.prune = json.optBoolean("prune", false);
+		String backend = json.optString("backend", "object");
+		if(backend.equals("population")) {
+			this.populationBackend = true;
+		} else if(!backend.equals("object")) {
+			throw new IllegalArgumentException("Unknown backend " + backend);
+		}
+		if(this.populationBackend && this.eventDriven) {
+			throw new IllegalArgumentException("The population backend steps every minute and cannot be combined with eventDriven");
+		}
+		this.minReplications = json.optInt("minReplications", 1);
+		this.maxReplications = json.optInt("maxReplications", this.minReplications);
+		this.confidence = json.optDouble("confidence", 0.95);
+		if(this.minReplications < 1 || this.maxReplications < this.minReplications) {
+			throw new IllegalArgumentException("Replications must be at least 1 and maxReplications must be at least minReplications");
+		}
+		if(this.confidence <= 0 || this.confidence >= 1) {
+			throw new IllegalArgumentException("confidence must be between 0 and 1");
+		}
+		if(this.prune && this.maxReplications > 1) {
+			throw new IllegalArgumentException("prune cannot be combined with replications, a single replication may fall below the best score while its mean does not");
+		}
+		String tape = json.optString("encounterTape", "none");
+		if(tape.equals("run") || tape.equals("generation")) {
+			this.encounterTape = true;
+			this.tapePerGeneration = tape.equals("generation");
+		} else if(!tape.equals("none")) {
+			throw new IllegalArgumentException("Unknown encounterTape " + tape);
+		}
+		this.tapeFile = json.has("tapeFile") ? json.getString("tapeFile") : null;
+		if(this.tapeFile != null && (!this.encounterTape || this.tapePerGeneration)) {
+			throw new IllegalArgumentException("tapeFile can only be used with an encounterTape of run");
+		}
+		if(this.encounterTape && this.maxReplications > 1) {
+			throw new IllegalArgumentException("encounterTape cannot be combined with replications, every replication would replay the same encounters");
+		}
+		this.forkDay = json.optInt("forkDay", 0);
+		if(this.forkDay < 0 || this.forkDay >= this.daysToRun) {
+			throw new IllegalArgumentException("forkDay must be at least 0 and less than daysToRun");
+		}
+		if(this.forkDay > 0 && (this.populationBackend || this.maxReplications > 1)) {
+			throw new IllegalArgumentException("forkDay cannot be combined with the population backend or replications");
+		}
+		this.steadyStateWindow = json.optInt("steadyStateWindow", 0);
+		this.steadyStateTolerance = json.optDouble("steadyStateTolerance", 0.05);
+		if(this.steadyStateWindow < 0 || (this.steadyStateWindow > 0 && this.steadyStateWindow < MIN_STEADY_STATE_WINDOW) || this.steadyStateTolerance < 0) {
+			throw new IllegalArgumentException("steadyStateWindow must be 0 or at least " + MIN_STEADY_STATE_WINDOW + ", and steadyStateTolerance must be at least 0");
+		}
+		if(this.steadyStateWindow > 0 && (this.populationBackend || this.maxReplications > 1)) {
+			throw new IllegalArgumentException("steadyStateWindow cannot be combined with the population backend or replications");
+		}
+		this.numBands = json.optInt("bands", 0);
+		this.landscapeWidth = json.optInt("landscapeWidth", 1);
+		this.landscapeHeight = json.optInt("landscapeHeight", 1);
+		this.regions = json.optInt("regions", Math.min(this.threads, this.landscapeHeight));
+		if(this.numBands < 0 || this.landscapeWidth < 1 || this.landscapeHeight < 1) {
+			throw new IllegalArgumentException("bands must be at least 0, and landscapeWidth and landscapeHeight at least 1");
+		}
+		if(this.regions < 1 || this.regions > this.landscapeHeight) {
+			throw new IllegalArgumentException("regions must be between 1 and landscapeHeight");
+		}
+		if(this.numBands > 0 && this.encounterTape) {
+			throw new IllegalArgumentException("bands cannot be combined with an encounterTape, the tape holds the encounters of a single group");
+		}
+		this.validationRuns = json.optInt("validationRuns", 0);
+		if(this.validationRuns < 0) {
+			throw new IllegalArgumentException("validationRuns must be at least 0");
+		}
+		JSONArray hiddenList = json.optJSONArray("hiddenLayers");
+		this.hiddenLayers = new int[hiddenList == null ? 0 : hiddenList.length()];
+		for(int l = 0; l < this.hiddenLayers.length; l++) {
+			this.hiddenLayers[l] = hiddenList.getInt(l);
+			if(this.hiddenLayers[l] < 1) {
+				throw new IllegalArgumentException("Every hidden layer must have at least 1 unit");
+			}
+		}
+		if(this.hiddenLayers.length > 0 && this.populationBackend) {
+			throw new IllegalArgumentException("hiddenLayers cannot be combined with the population backend, which only evaluates single layer nets");
+		}
+		if(json.has("seed")) {
+			this.seed = json.getLong("seed");
+		} else {
+			this.seed = System.nanoTime();
+		}
+		
+		JSONArray resourceList = json.getJSONArray("resources");
+		int[][][] encounterRates = parseEncounterRates(resourceList);
+		int seasonLength = json.optInt("seasonLength", 0);
+		int periodLength = json.optInt("periodLength", 0);
+		if(seasonLength < 0 || periodLength < 0) {
+			throw new IllegalArgumentException("seasonLength and periodLength must be at least 0");
+		}
+		if(encounterRates.length > 0 && encounterRates[0].length > 1 && seasonLength == 0) {
+			throw new IllegalArgumentException("Encounter rates with several seasons need a seasonLength");
+		}
+		if(encounterRates.length > 0 && encounterRates[0][0].length > 1 && periodLength == 0) {
+			throw new IllegalArgumentException("Encounter rates with several periods need a periodLength");
+		}
+		
+		List<Resource> resources = new ArrayList<Resource>();
+		for(Object r: resourceList) {
+			JSONObject resource = (JSONObject)r;
+			resources.add(new Resource(
+				resources.size(),
+				resource.getInt("calories"),
+				resource.getBoolean("animal"),
+				resource.getInt("gatherTime"),
+				resource.getInt("processTime"),
+				encounterRates[resources.size()][0][0],
+				resource.getDouble("weight"),
+				resource.getString("name"),
+				resource.getDouble("successRate"),
+				resource.optInt("stock", 0),
+				resource.optDouble("regeneration", 0.1)
+			));
+			if(resource.optInt("stock", 0) < 0 || resource.optDouble("regeneration", 0.1) < 0 || resource.optDouble("regeneration", 0.1) > 1) {
+				throw new IllegalArgumentException("stock must be at least 0 and regeneration must be between 0 and 1");
+			}
+		}
+		this.resources = Collections.unmodifiableList(resources);
+		this.stockLimited = ResourceStock.isLimited(resources);
+		if(this.stockLimited && (this.encounterTape || this.populationBackend)) {
+			throw new IllegalArgumentException("Resource stocks cannot be combined with an encounterTape or the population backend, encounters depend on what each candidate gathers");
+		}
+		
+		this.encounterSchedule = new EncounterSchedule(resources, encounterRates, seasonLength, periodLength, hoursToRun * 60);
+		this.groupTemplate = new GroupTemplate(numPeople, numParties, partySize);
+	}
+	
+	/**
+	 * Reads the encounter rate schedule of every resource. A resource's encounterRate is either a single rate, a list of rates for each season,
+	 * or a list for each season of rates for each period of the day. A single rate, for a resource or a season, applies to every season or period.
+	 * @param resourceList - Configured resources.
+	 * @return Encounter rate of each resource, indexed by resource, season then period.
+	 * @throws IllegalArgumentException - Thrown if the schedules do not all have the same number of seasons and periods, or a rate is negative.
+	 */
+	private static int[][][] parseEncounterRates(JSONArray resourceList) {
+		int numSeasons = 1;
+		int numPeriods = 1;
+		for(Object r: resourceList) {
+			JSONArray seasons = ((JSONObject)r).optJSONArray("encounterRate");
+			if(seasons != null) {
+				numSeasons = Math.max(numSeasons, seasons.length());
+				for(int s = 0; s < seasons.length(); s++) {
+					JSONArray periods = seasons.optJSONArray(s);
+					if(periods != null) {
+						numPeriods = Math.max(numPeriods, periods.length());
+					}
+				}
+			}
+		}
+		
+		int[][][] rates = new int[resourceList.length()][numSeasons][numPeriods];
+		for(int i = 0; i < rates.length; i++) {
+			JSONObject resource = resourceList.getJSONObject(i);
+			JSONArray seasons = resource.optJSONArray("encounterRate");
+			if(seasons != null && seasons.length() != numSeasons) {
+				throw new IllegalArgumentException("Every encounterRate schedule must have " + numSeasons + " seasons");
+			}
+			for(int s = 0; s < numSeasons; s++) {
+				JSONArray periods = seasons == null ? null : seasons.optJSONArray(s);
+				if(periods != null && periods.length() != numPeriods) {
+					throw new IllegalArgumentException("Every encounterRate schedule must have " + numPeriods + " periods");
+				}
+				for(int p = 0; p < numPeriods; p++) {
+					if(periods != null) {
+						rates[i][s][p] = periods.getInt(p);
+					} else if(seasons != null) {
+						rates[i][s][p] = seasons.getInt(s);
+					} else {
+						rates[i][s][p] = resource.getInt("encounterRate");
+					}
+					if(rates[i][s][p] < 0) {
+						throw new IllegalArgumentException("encounterRate must be at least 0");
+					}
+				}
+			}
+		}
+		return rates;
+	}
+	
+	/**
+	 * Retrieves the number of people in the group.
+	 * @return The number of people.
+	 */
+	public int getNumPeople() {
+		return numPeople;
+	}
+	
+	/**
+	 * Retrieves the number of people in each party.
+	 * @return The party size.
+	 */
+	public int getPartySize() {
+		return partySize;
+	}
+	
+	/**
+	 * Retrieves the number of days to simulate.
+	 * @return The days to run.
+	 */
+	public int getDaysToRun() {
+		return daysToRun;
+	}
+	
+	/**
+	 * Retrieves the number of hours allowed for hunting/gathering each day.
+	 * @return The hours to run.
+	 */
+	public int getHoursToRun() {
+		return hoursToRun;
+	}
+	
+	/**
+	 * Retrieves the number of parties in the group.
+	 * @return The number of parties.
+	 */
+	public int getNumParties() {
+		return numParties;
+	}
+	
+	/**
+	 * Retrieves the number of generations to train for.
+	 * @return The number of generations.
+	 */
+	public int getNumGenerations() {
+		return numGenerations;
+	}
+	
+	/**
+	 * Retrieves the number of mutated and the number of random individuals in each generation.
+	 * @return The number of individuals.
+	 */
+	public int getNumIndividuals() {
+		return numIndividuals;
+	}
+	
+	/**
+	 * Retrieves if the score should be maximized or minimized.
+	 * @return True if the score is maximized.
+	 */
+	public boolean isMaximize() {
+		return maximize;
+	}
+	
+	/**
+	 * Retrieves the number of worker threads used to evaluate a generation.
+	 * @return The number of threads. Defaults to the number of available processors.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Retrieves if days are simulated by jumping between encounters rather than stepping every minute.
+	 * @return True if the event driven engine is used.
+	 */
+	public boolean isEventDriven() {
+		return eventDriven;
+	}
+	
+	/**
+	 * Retrieves the seed all random streams of the run are derived from.
+	 * @return The seed. Defaults to a seed based on the current time.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Retrieves if candidates are stopped as soon as they can no longer beat the best score so far.
+	 * @return True if pruning is enabled.
+	 */
+	public boolean isPrune() {
+		return prune;
+	}
+	
+	/**
+	 * Retrieves if candidates are simulated together in lockstep by PopulationSimulation rather than one at a time by Simulation.
+	 * @return True if the population backend is used.
+	 */
+	public boolean isPopulationBackend() {
+		return populationBackend;
+	}
+	
+	/**
+	 * Retrieves the number of replications every candidate is simulated for, each with its own random stream.
+	 * @return Minimum number of replications. Defaults to 1.
+	 */
+	public int getMinReplications() {
+		return minReplications;
+	}
+	
+	/**
+	 * Retrieves the most replications a candidate is simulated for while its ranking against the leader of its generation is uncertain.
+	 * @return Maximum number of replications. Defaults to minReplications.
+	 */
+	public int getMaxReplications() {
+		return maxReplications;
+	}
+	
+	/**
+	 * Retrieves the confidence level of the intervals around replicated scores.
+	 * @return Confidence level. Defaults to 0.95.
+	 */
+	public double getConfidence() {
+		return confidence;
+	}
+	
+	/**
+	 * Retrieves if candidates replay a shared tape of encounters rather than drawing their own, so they are compared on the same luck.
+	 * @return True if an encounter tape is used.
+	 */
+	public boolean isEncounterTape() {
+		return encounterTape;
+	}
+	
+	/**
+	 * Retrieves if a new encounter tape is recorded for every generation rather than once for the whole run.
+	 * @return True if the tape is recorded per generation.
+	 */
+	public boolean isTapePerGeneration() {
+		return tapePerGeneration;
+	}
+	
+	/**
+	 * Retrieves the file the encounter tape of the run is kept in. An existing tape in the file is replayed rather than recorded again,
+	 * so several runs or processes can share it.
+	 * @return Path of tape file, or null to record the tape into a temporary file.
+	 */
+	public String getTapeFile() {
+		return tapeFile;
+	}
+	
+	/**
+	 * Retrieves the day candidates are forked at. The best net so far simulates the days before it once per generation, and every candidate
+	 * resumes from its checkpoint, so candidates only decide the days after it.
+	 * @return Number of days before the fork, 0 if every candidate is simulated from the first day.
+	 */
+	public int getForkDay() {
+		return forkDay;
+	}
+	
+	/**
+	 * Retrieves the number of days in each of the two windows compared to detect a steady state. Once the daily statistics of the last two
+	 * windows agree, the run stops and the days left are extrapolated.
+	 * @return Days per window, 0 if every day is simulated.
+	 */
+	public int getSteadyStateWindow() {
+		return steadyStateWindow;
+	}
+	
+	/**
+	 * Retrieves the largest relative difference between the mean daily statistics of the two windows that still counts as steady.
+	 * @return Relative tolerance. Defaults to 0.05.
+	 */
+	public double getSteadyStateTolerance() {
+		return steadyStateTolerance;
+	}
+	
+	/**
+	 * Retrieves all resources that may be encountered.
+	 * @return The resources.
+	 */
+	public List<Resource> getResources() {
+		return resources;
+	}
+	
+	/**
+	 * Retrieves the compiled samplers of the resources parties may encounter in each season and period of the day.
+	 * @return Encounter schedule.
+	 */
+	public EncounterSchedule getEncounterSchedule() {
+		return encounterSchedule;
+	}
+	
+	/**
+	 * Retrieves if any resource has a finite stock that is depleted as it is gathered.
+	 * @return True if simulations keep a stock of resources.
+	 */
+	public boolean isStockLimited() {
+		return stockLimited;
+	}
+	
+	/**
+	 * Retrieves the number of bands simulating the best net on a shared landscape after training.
+	 * @return Number of bands, 0 if no landscape is simulated.
+	 */
+	public int getNumBands() {
+		return numBands;
+	}
+	
+	/**
+	 * Retrieves the width of the landscape.
+	 * @return Number of tiles in each row. Defaults to 1.
+	 */
+	public int getLandscapeWidth() {
+		return landscapeWidth;
+	}
+	
+	/**
+	 * Retrieves the height of the landscape.
+	 * @return Number of rows of tiles. Defaults to 1.
+	 */
+	public int getLandscapeHeight() {
+		return landscapeHeight;
+	}
+	
+	/**
+	 * Retrieves the number of regions the rows of the landscape are split into, each advanced by one worker at a time.
+	 * @return Number of regions. Defaults to the number of threads, at most one per row.
+	 */
+	public int getRegions() {
+		return regions;
+	}
+	
+	/**
+	 * Retrieves the number of units in each hidden layer of the decision nets.
+	 * @return Width of each hidden layer, from input to output. Empty if the nets connect their inputs straight to the output.
+	 */
+	public int[] getHiddenLayers() {
+		return hiddenLayers;
+	}
+	
+	/**
+	 * Retrieves the number of times the best net is simulated again after training, each with its own random stream.
+	 * @return Number of validation runs, 0 if the best net is not validated.
+	 */
+	public int getValidationRuns() {
+		return validationRuns;
+	}
+	
+	/**
+	 * Retrieves the layout of the group every simulation starts from.
+	 * @return Template of the group's members and parties.
+	 */
+	public GroupTemplate getGroupTemplate() {
+		return groupTemplate;
+	}
+}
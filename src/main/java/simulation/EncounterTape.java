@@ -0,0 +1,284 @@
+package main.java.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import main.java.resource.EncounterSchedule;
+import main.java.resource.Resource;
+import main.java.resource.ResourceSampler;
+
+/**
+ * This class represents a pre-generated tape of the encounters every party makes, shared read-only by every candidate simulated against it.
+ * Replaying the same encounters for every candidate removes the noise between their scores that comes from seeing different luck, and removes
+ * random number generation from the simulation.
+ * <p>
+ * The tape is stored in a memory-mapped file so many threads, or processes, can share it without copying. It holds, for each day and party,
+ * the minutes at which the party would find a resource if it were searching, which resource it would find and the roll deciding if gathering it succeeds.
+ * Layout, big endian: a header of magic, days, parties, minutes per day and number of resources (ints) and a fingerprint of the resources and
+ * their encounter rates (long); days * parties + 1 int offsets of each day and party's first encounter; then 8 bytes per encounter: minute
+ * (short), resource id (short) and success roll (float). The whole tape must fit in 2 GB, the most a single buffer can map.
+ * @author Kyle McVay
+ */
+public class EncounterTape {
+	private static final int MAGIC = 0x54415046;
+	private static final int HEADER_BYTES = 28;
+	private static final int ENCOUNTER_BYTES = 8;
+	
+	private ByteBuffer buffer;
+	private int days;
+	private int parties;
+	private int minutes;
+	private int resources;
+	private long fingerprint;
+	private int encountersStart;
+	
+	/**
+	 * Constructs a new EncounterTape over a mapped buffer.
+	 * @param buffer - Buffer holding the tape.
+	 * @throws IllegalArgumentException - Thrown if the buffer does not hold a complete tape, or an encounter is out of range.
+	 */
+	public EncounterTape(ByteBuffer buffer) {
+		this.buffer = buffer;
+		if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not an encounter tape");
+		}
+		this.days = buffer.getInt(4);
+		this.parties = buffer.getInt(8);
+		this.minutes = buffer.getInt(12);
+		this.resources = buffer.getInt(16);
+		this.fingerprint = buffer.getLong(20);
+		if(days < 0 || parties < 0 || minutes < 0 || resources < 0) {
+			throw new IllegalArgumentException("Encounter tape has a corrupt header");
+		}
+		long start = HEADER_BYTES + ((long)days * parties + 1) * 4;
+		if(start > buffer.capacity()) {
+			throw new IllegalArgumentException("Encounter tape is truncated");
+		}
+		this.encountersStart = (int)start;
+		int count = buffer.getInt(encountersStart - 4);
+		if(count < 0 || start + (long)count * ENCOUNTER_BYTES > buffer.capacity()) {
+			throw new IllegalArgumentException("Encounter tape is truncated");
+		}
+		for(int encounter = 0; encounter < count; encounter++) {
+			int resource = resource(encounter);
+			int minute = minute(encounter);
+			if(resource < 0 || resource >= resources || minute < 0 || minute >= minutes) {
+				throw new IllegalArgumentException("Encounter tape has encounter " + encounter + " out of range: resource " + resource + ", minute " + minute);
+			}
+		}
+	}
+	
+	/**
+	 * Records a new tape of encounters into a file and maps it.
+	 * @param config - Configuration to record encounters for.
+	 * @param random - Random stream to draw encounters from.
+	 * @param file - File to write the tape to. It is overwritten.
+	 * @return Mapped tape.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public static EncounterTape record(Configuration config, RandomStream random, File file) throws IOException {
+		int days = config.getDaysToRun();
+		int parties = config.getNumParties();
+		int minutes = config.getHoursToRun() * 60;
+		if(minutes > Short.MAX_VALUE || config.getResources().size() > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many minutes or resources to record an encounter tape");
+		}
+		
+		long headerBytes = HEADER_BYTES + ((long)days * parties + 1) * 4;
+		if(headerBytes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many days and parties to record an encounter tape, it would exceed 2 GB");
+		}
+		
+		EncounterSchedule schedule = config.getEncounterSchedule();
+		int[] offsets = new int[days * parties + 1];
+		ByteBuffer encounters = ByteBuffer.allocate(1 << 16);
+		int count = 0;
+		for(int day = 0; day < days; day++) {
+			for(int p = 0; p < parties; p++) {
+				offsets[day * parties + p] = count;
+				// Parties alternate between hunting and gathering, starting with hunting
+				ResourceSampler[] samplers = p % 2 == 0 ? schedule.getAnimals(day) : schedule.getPlants(day);
+				int minute = 0;
+				while(minute < minutes) {
+					ResourceSampler sampler = samplers[schedule.period(minute)];
+					double chance = sampler.getEncounterChance();
+					int periodEnd = schedule.periodEnd(minute);
+					if(chance <= 0) {
+						minute = periodEnd;
+						continue;
+					}
+					if(chance < 1) {
+						// A wait past the end of the period is sampled again at the next period's chance
+						double gap = Math.floor(Math.log(1 - random.nextDouble()) / Math.log1p(-chance));
+						if(gap >= periodEnd - minute) {
+							minute = periodEnd;
+							continue;
+						}
+						minute += (int)gap;
+					}
+					if(headerBytes + (long)(count + 1) * ENCOUNTER_BYTES > Integer.MAX_VALUE) {
+						throw new IllegalArgumentException("Too many encounters to record an encounter tape, it would exceed 2 GB. Reduce daysToRun or numParties");
+					}
+					if(encounters.remaining() < ENCOUNTER_BYTES) {
+						ByteBuffer grown = ByteBuffer.allocate((int)Math.min(2L * encounters.capacity(), Integer.MAX_VALUE - headerBytes));
+						encounters.flip();
+						grown.put(encounters);
+						encounters = grown;
+					}
+					encounters.putShort((short)minute);
+					encounters.putShort((short)sampler.sampleEncountered(random.nextDouble()).getId());
+					// 24 random bits so the roll is exact as a float and stays below 1
+					encounters.putFloat((random.nextLong() >>> 40) * 0x1.0p-24f);
+					count++;
+					minute++;
+				}
+			}
+		}
+		offsets[days * parties] = count;
+		encounters.flip();
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + offsets.length * 4);
+		header.putInt(MAGIC).putInt(days).putInt(parties).putInt(minutes).putInt(config.getResources().size()).putLong(fingerprint(config));
+		for(int offset: offsets) {
+			header.putInt(offset);
+		}
+		header.flip();
+		
+		try(RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+			while(header.hasRemaining()) {
+				channel.write(header);
+			}
+			while(encounters.hasRemaining()) {
+				channel.write(encounters);
+			}
+		}
+		return open(file);
+	}
+	
+	/**
+	 * Maps an existing tape file read-only.
+	 * @param file - File holding the tape.
+	 * @return Mapped tape.
+	 * @throws IOException Thrown if the file cannot be read.
+	 */
+	public static EncounterTape open(File file) throws IOException {
+		try(RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			MappedByteBuffer mapped = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+			return new EncounterTape(mapped.order(ByteOrder.BIG_ENDIAN));
+		}
+	}
+	
+	/**
+	 * Checks if this tape covers the days, parties and minutes of a configuration, and was recorded from the same resources and encounter rates.
+	 * The seed is not checked, so runs with different seeds may share one tape.
+	 * @param config - Configuration to check.
+	 * @return True if the tape can be replayed for the configuration.
+	 */
+	public boolean fits(Configuration config) {
+		return days == config.getDaysToRun() && parties == config.getNumParties() && minutes == config.getHoursToRun() * 60
+				&& resources == config.getResources().size() && fingerprint == fingerprint(config);
+	}
+	
+	/**
+	 * Calculates a fingerprint of the resources of a configuration and their encounter rates on every period of every day, so a tape recorded
+	 * from a different catalog is not replayed by mistake.
+	 * @param config - Configuration to fingerprint.
+	 * @return 64 bit FNV-1a hash of the name, type and encounter rates of each resource, in id order.
+	 */
+	private static long fingerprint(Configuration config) {
+		EncounterSchedule schedule = config.getEncounterSchedule();
+		long hash = 0xcbf29ce484222325L;
+		for(Resource resource: config.getResources()) {
+			hash = mix(hash, resource.getId());
+			hash = mix(hash, resource.isAnimal() ? 1 : 0);
+			for(int i = 0; i < resource.getName().length(); i++) {
+				hash = mix(hash, resource.getName().charAt(i));
+			}
+			for(int day = 0; day < config.getDaysToRun(); day++) {
+				for(int period = 0; period < schedule.getNumPeriods(); period++) {
+					hash = mix(hash, schedule.getEncounterRate(resource, day, period));
+				}
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * Adds a value to an FNV-1a hash, one byte at a time.
+	 * @param hash - Hash so far.
+	 * @param value - Value to add.
+	 * @return New hash.
+	 */
+	private static long mix(long hash, int value) {
+		for(int shift = 0; shift < 32; shift += 8) {
+			hash ^= (value >>> shift) & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Retrieves the index of the first encounter of a party on a day.
+	 * @param day - Day of simulation.
+	 * @param party - Index of party.
+	 * @return Index of first encounter.
+	 */
+	public int start(int day, int party) {
+		return buffer.getInt(HEADER_BYTES + (day * parties + party) * 4);
+	}
+	
+	/**
+	 * Retrieves the index after the last encounter of a party on a day.
+	 * @param day - Day of simulation.
+	 * @param party - Index of party.
+	 * @return Index after last encounter.
+	 */
+	public int end(int day, int party) {
+		return start(day, party) + count(day, party);
+	}
+	
+	/**
+	 * Retrieves the minute of an encounter.
+	 * @param encounter - Index of encounter.
+	 * @return Minute of the day the encounter happens at.
+	 */
+	public int minute(int encounter) {
+		return buffer.getShort(encountersStart + encounter * ENCOUNTER_BYTES);
+	}
+	
+	/**
+	 * Retrieves the resource found in an encounter.
+	 * @param encounter - Index of encounter.
+	 * @return Id of resource.
+	 */
+	public int resource(int encounter) {
+		return buffer.getShort(encountersStart + encounter * ENCOUNTER_BYTES + 2);
+	}
+	
+	/**
+	 * Retrieves the roll deciding if gathering the resource of an encounter succeeds.
+	 * @param encounter - Index of encounter.
+	 * @return Uniform roll in [0, 1).
+	 */
+	public double roll(int encounter) {
+		return buffer.getFloat(encountersStart + encounter * ENCOUNTER_BYTES + 4);
+	}
+	
+	/**
+	 * Retrieves the number of encounters of a party on a day.
+	 * @param day - Day of simulation.
+	 * @param party - Index of party.
+	 * @return Number of encounters.
+	 */
+	private int count(int day, int party) {
+		int index = HEADER_BYTES + (day * parties + party) * 4;
+		return buffer.getInt(index + 4) - buffer.getInt(index);
+	}
+}
@@ -0,0 +1,127 @@
+package main.java.simulation;
+
+import java.util.Arrays;
+
+import main.java.people.Group;
+
+/**
+ * This class represents the results of evaluating every candidate of a generation.
+ * @author Kyle McVay
+ */
+public class Evaluation {
+	private double[] scores;
+	private Group[] groups;
+	private boolean[] pruned;
+	private double[] halfWidths;
+	private int[] replications;
+	private int[] stopDays;
+	
+	/**
+	 * Constructs a new empty Evaluation.
+	 * @param size - Number of candidates.
+	 */
+	public Evaluation(int size) {
+		this.scores = new double[size];
+		this.groups = new Group[size];
+		this.pruned = new boolean[size];
+		this.halfWidths = new double[size];
+		this.replications = new int[size];
+		Arrays.fill(this.replications, 1);
+		this.stopDays = new int[size];
+	}
+	
+	/**
+	 * Records the result of a candidate.
+	 * @param candidate - Index of candidate.
+	 * @param score - Score of candidate.
+	 * @param group - Group simulated for candidate.
+	 * @param pruned - True if the candidate was stopped early.
+	 */
+	public void set(int candidate, double score, Group group, boolean pruned) {
+		this.scores[candidate] = score;
+		this.groups[candidate] = group;
+		this.pruned[candidate] = pruned;
+	}
+	
+	/**
+	 * Records the confidence of a candidate's score, when its score is the mean of several replications.
+	 * @param candidate - Index of candidate.
+	 * @param halfWidth - Half width of the confidence interval around the score.
+	 * @param replications - Number of replications simulated.
+	 */
+	public void setConfidence(int candidate, double halfWidth, int replications) {
+		this.halfWidths[candidate] = halfWidth;
+		this.replications[candidate] = replications;
+	}
+	
+	/**
+	 * Records the day a candidate's simulation reached a steady state and extrapolated the rest of the run from.
+	 * @param candidate - Index of candidate.
+	 * @param stopDay - Number of days simulated, or 0 if every day was simulated.
+	 */
+	public void setStopDay(int candidate, int stopDay) {
+		this.stopDays[candidate] = stopDay;
+	}
+	
+	/**
+	 * Retrieves the number of candidates evaluated.
+	 * @return Number of candidates.
+	 */
+	public int size() {
+		return scores.length;
+	}
+	
+	/**
+	 * Retrieves the score of a candidate.
+	 * @param candidate - Index of candidate.
+	 * @return Score of candidate.
+	 */
+	public double getScore(int candidate) {
+		return scores[candidate];
+	}
+	
+	/**
+	 * Retrieves the group simulated for a candidate.
+	 * @param candidate - Index of candidate.
+	 * @return Group of candidate.
+	 */
+	public Group getGroup(int candidate) {
+		return groups[candidate];
+	}
+	
+	/**
+	 * Retrieves if a candidate was stopped early because it could not beat the best score.
+	 * @param candidate - Index of candidate.
+	 * @return True if candidate was pruned.
+	 */
+	public boolean isPruned(int candidate) {
+		return pruned[candidate];
+	}
+	
+	/**
+	 * Retrieves the half width of the confidence interval around a candidate's score.
+	 * @param candidate - Index of candidate.
+	 * @return Half width of interval, 0 if the candidate was simulated once over every day.
+	 */
+	public double getHalfWidth(int candidate) {
+		return halfWidths[candidate];
+	}
+	
+	/**
+	 * Retrieves the number of replications a candidate's score is averaged over.
+	 * @param candidate - Index of candidate.
+	 * @return Number of replications.
+	 */
+	public int getReplications(int candidate) {
+		return replications[candidate];
+	}
+	
+	/**
+	 * Retrieves the day a candidate's simulation reached a steady state at.
+	 * @param candidate - Index of candidate.
+	 * @return Number of days simulated, 0 if every day was simulated.
+	 */
+	public int getStopDay(int candidate) {
+		return stopDays[candidate];
+	}
+}
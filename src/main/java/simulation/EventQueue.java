@@ -0,0 +1,101 @@
+package main.java.simulation;
+
+/**
+ * This class represents a priority queue of party wake-up events, ordered by minute and then by party index.
+ * Events are packed into a binary heap of longs so queuing and polling do not allocate.
+ * @author Kyle McVay
+ */
+public class EventQueue {
+	private long[] heap;
+	private int size;
+	
+	/**
+	 * Constructs a new empty EventQueue.
+	 * @param capacity - Initial capacity of queue, usually the number of parties.
+	 */
+	public EventQueue(int capacity) {
+		this.heap = new long[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+	
+	/**
+	 * Queues a party to wake up at the given minute.
+	 * @param minute - Minute to wake up at.
+	 * @param party - Index of party to wake up.
+	 */
+	public void add(int minute, int party) {
+		if(size == heap.length) {
+			long[] grown = new long[heap.length * 2];
+			System.arraycopy(heap, 0, grown, 0, size);
+			heap = grown;
+		}
+		long event = ((long)minute << 32) | (party & 0xFFFFFFFFL);
+		int i = size++;
+		while(i > 0) {
+			int parent = (i - 1) >>> 1;
+			if(heap[parent] <= event) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = event;
+	}
+	
+	/**
+	 * Removes the earliest event from the queue.
+	 * @return The removed event. Use minute(event) and party(event) to unpack it.
+	 */
+	public long poll() {
+		long first = heap[0];
+		long last = heap[--size];
+		int i = 0;
+		int half = size >>> 1;
+		while(i < half) {
+			int child = 2 * i + 1;
+			if(child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if(last <= heap[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return first;
+	}
+	
+	/**
+	 * Retrieves if this queue has no events.
+	 * @return True if queue is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Removes all events from this queue.
+	 */
+	public void clear() {
+		size = 0;
+	}
+	
+	/**
+	 * Retrieves the minute of an event.
+	 * @param event - Event returned by poll.
+	 * @return Minute of event.
+	 */
+	public static int minute(long event) {
+		return (int)(event >>> 32);
+	}
+	
+	/**
+	 * Retrieves the party index of an event.
+	 * @param event - Event returned by poll.
+	 * @return Index of party to wake up.
+	 */
+	public static int party(long event) {
+		return (int)event;
+	}
+}
@@ -4,9 +4,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 
 import org.json.JSONObject;
@@ -15,11 +19,11 @@ import main.java.neural.Connection;
 import main.java.neural.InputNeuron;
 import main.java.neural.Layer;
 import main.java.neural.Net;
+import main.java.neural.NetCodeGenerator;
 import main.java.neural.Neuron;
+import main.java.neural.RectifiedLinearFunction;
 import main.java.people.Group;
-import main.java.people.Party;
 import main.java.people.Person;
-import main.java.people.StarvationException;
 import main.java.resource.Resource;
 
 /**
@@ -27,19 +31,15 @@ import main.java.resource.Resource;
  * @author Kyle McVay
  */
 public class Hunting {
-	private static int NUM_PEOPLE;
-	private static int PARTY_SIZE;
-	private static int DAYS_TO_RUN;// Number of days to simulate
-	private static int HOURS_TO_RUN;// Number of hours to allow for hunting/gathering each day
-	private static int NUM_PARTIES;
-	private static int NUM_GENERATIONS;
-	private static int NUM_INDIVIDUALS;
-	private static boolean MAXIMIZE;
-	private static List<Resource> resources;
-	private static Group group;
-	private static Group bestGroup;
-	private static Map<Double, Resource> chancesAnimal;
-	private static Map<Double, Resource> chancesPlant;
+	private static final int INITIAL_GENERATION = -1;// Generation key of the random streams used to find the initial net
+	private static final int CODE_CHECK_SAMPLES = 10000;// Random inputs a generated decision function is checked on
+	private static Configuration config;
+	private static RandomStream netRandom;
+	private static RandomStream simulationRandom;
+	private static RandomStream tapeRandom;
+	private static RandomStream landscapeRandom;
+	private static RandomStream validationRandom;
+	private static EncounterTape runTape;
 	private static double totalCalsAnimals;
 	private static double totalCalsPlants;
 
@@ -47,94 +47,81 @@ public class Hunting {
 	 * Main method of application. Reads in configuration file and runs simulation.
 	 * @param args - Arguments. args[0] should be name of configuration file.
 	 * @throws IOException Thrown if file is read incorrectly.
+	 * @throws InterruptedException Thrown if interrupted while waiting for a generation to be evaluated.
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, InterruptedException {
 		String fileName = args[0];
 		File jsonFile = new File(fileName);
 		String fileContent = new String(Files.readAllBytes(jsonFile.toPath()));
 		JSONObject json = new JSONObject(fileContent);
 		
-		NUM_PEOPLE = json.getInt("numPeople");
-		PARTY_SIZE = json.getInt("partySize");
-		DAYS_TO_RUN = json.getInt("daysToRun");
-		HOURS_TO_RUN = json.getInt("hoursToRun");
-		NUM_PARTIES = json.getInt("numParties");
-		NUM_GENERATIONS = json.getInt("numGenerations");
-		NUM_INDIVIDUALS = json.getInt("numIndividuals");
-		MAXIMIZE = json.getBoolean("maximize");
+		config = new Configuration(json);
+		RandomStream random = new RandomStream(config.getSeed());
+		netRandom = random.split(0);
+		simulationRandom = random.split(1);
+		tapeRandom = random.split(2);
+		landscapeRandom = random.split(3);
+		validationRandom = random.split(4);
 		Person.MAX_WEIGHT = json.getInt("maxWeight");
 		Person.CALS_BURNED_AT_REST = json.getInt("calsBurnedAtRest");
 		Person.CALS_BURNED_FORAGING = json.getInt("calsBurnedForaging");
 		Person.MEAT_RATIO = json.getDouble("meatRatio");
 		
-		List<Long> animalArray = new ArrayList<Long>();
-		List<Long> plantArray = new ArrayList<Long>();
-		
-		resources = new ArrayList<Resource>();
-		for(Object r: json.getJSONArray("resources")) {
-			JSONObject resource = (JSONObject)r;
-			resources.add(new Resource(
-				resource.getInt("calories"),
-				resource.getBoolean("animal"),
-				resource.getInt("gatherTime"),
-				resource.getInt("processTime"),
-				resource.getInt("encounterRate"),
-				resource.getDouble("weight"),
-				resource.getString("name"),
-				resource.getDouble("successRate")
-			));
+		ExecutorService executor = null;
+		if(config.getThreads() > 1) {
+			executor = Executors.newFixedThreadPool(config.getThreads());
 		}
-		
-		for(Resource resource: resources) {
-			if(resource.isAnimal()) {
-				animalArray.add(Long.valueOf(resource.getEncounterRate()));
-			} else {
-				plantArray.add(Long.valueOf(resource.getEncounterRate()));
+		try {
+			train(executor);
+		} finally {
+			if(executor != null) {
+				executor.shutdownNow();
 			}
 		}
-		
-		long commonDenominatorAnimals = lcm(animalArray);
-		long commonDenominatorPlants = lcm(plantArray);
-		
-		chancesAnimal = new HashMap<Double, Resource>();
-		chancesPlant = new HashMap<Double, Resource>();
-		
-		for(Resource resource: resources) {
-			if(resource.isAnimal()) {
-				chancesAnimal.put(((commonDenominatorAnimals / 1.0) / resource.getEncounterRate()) / commonDenominatorAnimals, resource);
-			} else {
-				chancesPlant.put(((commonDenominatorPlants / 1.0) / resource.getEncounterRate()) / commonDenominatorPlants, resource);
-			}
-		}
-		
-		Net net = generateNet();
+	}
+	
+	/**
+	 * Trains the decision net and prints the results.
+	 * @param executor - Executor to evaluate generations on, or null to evaluate them on this thread.
+	 * @throws IOException Thrown if the encounter tape cannot be recorded or read.
+	 * @throws InterruptedException Thrown if interrupted while waiting for a generation to be evaluated.
+	 */
+	private static void train(ExecutorService executor) throws IOException, InterruptedException {
+		System.out.println("Seed: " + config.getSeed());
+		int attempt = 0;
+		Net net = generateNet(netRandom.split(INITIAL_GENERATION).split(attempt));
 		Net bestNet = net;
 		double bestScore = 0;
-		if(!MAXIMIZE) {
+		if(!config.isMaximize()) {
 			bestScore = Double.MAX_VALUE;
 		}
-		bestGroup = new Group();
+		Group bestGroup = new Group();
+		double bestHalfWidth = 0;
+		int bestStopDay = 0;
+		EncounterTape initialTape = tapeFor(INITIAL_GENERATION);
 		while(bestScore == 0 || bestScore == Double.MAX_VALUE) {
-			double score = runSimulation(net);
-			if(MAXIMIZE) {
-				if(score > bestScore) {
-					bestNet = net;
-					bestScore = score;
-					bestGroup = group;
-				}
-			} else {
-				if(score != 0 && score < bestScore) {
-					bestNet = net;
-					bestScore = score;
-					bestGroup = group;
-				}
+			Simulation simulation = new Simulation(config, net, simulationRandom.split(INITIAL_GENERATION).split(attempt));
+			simulation.setTape(initialTape);
+			double score = simulation.run();
+			if(isBetter(score, bestScore)) {
+				bestNet = net;
+				bestScore = score;
+				bestGroup = simulation.getGroup();
+				bestHalfWidth = simulation.getExtrapolationHalfWidth();
+				bestStopDay = simulation.getStopDay();
 			}
-			net = generateNet();
+			attempt++;
+			net = generateNet(netRandom.split(INITIAL_GENERATION).split(attempt));
 		}
 		
-		System.out.println("Found intial net.\nScore: " + bestScore + "\nDays Survived: " + bestGroup.getDaysSurvived() + "\nWeightings:");
-		for(Neuron neuron: bestNet.getInputLayer().getNeurons()) {
-			System.out.println(neuron.getId() + ": " + neuron.getOutputConnections().get(0).getWeight());
+		System.out.println("Found intial net.\nScore: " + bestScore + "\nDays Survived: " + bestGroup.getDaysSurvived());
+		if(config.getHiddenLayers().length > 0) {
+			System.out.println("Hidden Layers: " + Arrays.toString(config.getHiddenLayers()));
+		} else {
+			System.out.println("Weightings:");
+			for(Neuron neuron: bestNet.getInputLayer().getNeurons()) {
+				System.out.println(neuron.getId() + ": " + neuron.getOutputConnections().get(0).getWeight());
+			}
 		}
 		System.out.println("Initial Net hunting values:");
 		bestGroup.getTotalGathered().forEach(new BiConsumer<Resource, Integer>(){
@@ -148,38 +135,74 @@ public class Hunting {
 		});
 		System.out.println();
 		
-		for(int j = 0; j < NUM_GENERATIONS; j++) {
-			System.out.print("\rCompleted " + j + "/"+ NUM_GENERATIONS + " Generations.");
-			List<Net> nets = new ArrayList<Net>();
-			for(int i = 0; i < NUM_INDIVIDUALS; i++) {
-				nets.add(generateMutation(bestNet));
+		int pruned = 0;
+		int bestReplications = 1;
+		for(int j = 0; j < config.getNumGenerations(); j++) {
+			System.out.print("\rCompleted " + j + "/"+ config.getNumGenerations() + " Generations.");
+			List<Net> candidates = new ArrayList<Net>();
+			List<RandomStream> randoms = new ArrayList<RandomStream>();
+			for(int i = 0; i < 2 * config.getNumIndividuals(); i++) {
+				// Every candidate has its own streams, derived from the seed, generation and candidate index
+				RandomStream random = netRandom.split(j).split(i);
+				if(i < config.getNumIndividuals()) {
+					candidates.add(generateMutation(bestNet, random));
+				} else {
+					candidates.add(generateNet(random));
+				}
+				randoms.add(simulationRandom.split(j).split(i));
 			}
-			for(int i = 0; i < NUM_INDIVIDUALS; i++) {
-				nets.add(generateNet());
+			
+			EncounterTape tape = tapeFor(j);
+			Checkpoint checkpoint = null;
+			if(config.getForkDay() > 0) {
+				// The best net so far plays the days before the fork once, and every candidate takes over from there
+				Simulation prefix = new Simulation(config, bestNet, simulationRandom.split(j).split(2 * config.getNumIndividuals()));
+				prefix.setTape(tape);
+				prefix.setCheckpointDay(config.getForkDay());
+				prefix.run();
+				checkpoint = prefix.getCheckpoint();
 			}
 			
-			for(Net testNet: nets) {
-				double score = runSimulation(testNet);
-				if(MAXIMIZE) {
-					if(score > bestScore) {
-						bestNet = net;
-						bestScore = score;
-						bestGroup = group;
-					}
-				} else {
-					if(score != 0 && score < bestScore) {
-						bestNet = net;
-						bestScore = score;
-						bestGroup = group;
-					}
+			Evaluation evaluation;
+			if(config.getMaxReplications() > 1) {
+				evaluation = evaluateReplicated(candidates, randoms, executor);
+			} else {
+				evaluation = evaluate(candidates, randoms, tape, checkpoint, config.isPrune() ? bestScore : Double.NaN, executor);
+			}
+			
+			// Reduce in candidate order so ties always go to the earliest candidate, regardless of which thread finished first
+			for(int i = 0; i < evaluation.size(); i++) {
+				if(evaluation.isPruned(i)) {
+					pruned++;
+				}
+				if(isBetter(evaluation.getScore(i), bestScore)) {
+					bestNet = candidates.get(i);
+					bestScore = evaluation.getScore(i);
+					bestGroup = evaluation.getGroup(i);
+					bestHalfWidth = evaluation.getHalfWidth(i);
+					bestReplications = evaluation.getReplications(i);
+					bestStopDay = evaluation.getStopDay(i);
 				}
 			}
 			
-			nets = null;
+			candidates = null;
 		}
 		System.out.println();
 		System.out.println("Best Score: " + bestScore);
 		System.out.println("Days Survived: " + bestGroup.getDaysSurvived());
+		if(bestReplications > 1) {
+			System.out.println("Confidence Interval: +/- " + bestHalfWidth + " (" + (config.getConfidence() * 100) + "%, " + bestReplications + " replications)");
+		}
+		if(bestStopDay > 0) {
+			System.out.println("Extrapolated From Day: " + bestStopDay);
+			System.out.println("Confidence Interval: +/- " + bestHalfWidth + " (" + (config.getConfidence() * 100) + "%, extrapolated)");
+		}
+		if(config.getForkDay() > 0) {
+			System.out.println("Forked At Day: " + config.getForkDay());
+		}
+		if(config.isPrune()) {
+			System.out.println("Candidates Pruned: " + pruned + "/" + (2 * config.getNumIndividuals() * config.getNumGenerations()));
+		}
 		System.out.println("Best Net hunting values:");
 		bestGroup.getTotalGathered().forEach(new BiConsumer<Resource, Integer>(){
 			/**
@@ -207,13 +230,379 @@ public class Hunting {
 				}
 			}
 		});
+		
+		NetCodeGenerator codeGenerator = null;
+		if(config.getValidationRuns() > 0 || config.getNumBands() > 0) {
+			// The best net is fixed from here on, so its decision function is generated once and checked before it is trusted
+			codeGenerator = new NetCodeGenerator(bestNet);
+			checkCodeGenerator(codeGenerator, validationRandom.split(0));
+		}
+		if(config.getValidationRuns() > 0) {
+			validate(codeGenerator, validationRandom.split(1), executor);
+		}
+		
+		if(config.getNumBands() > 0) {
+			Landscape landscape = new Landscape(config, codeGenerator, landscapeRandom);
+			landscape.run(executor);
+			double total = 0;
+			for(double score: landscape.getScores()) {
+				total += score;
+			}
+			System.out.println();
+			System.out.println("Landscape: " + config.getNumBands() + " bands on " + config.getLandscapeWidth() + "x" + config.getLandscapeHeight() + " tiles in " + config.getRegions() + " regions");
+			System.out.println("Bands Survived: " + landscape.getSurvivors() + "/" + config.getNumBands());
+			System.out.println("Mean Band Score: " + total / config.getNumBands());
+			System.out.println("Band Migrations: " + landscape.getMigrations());
+		}
+	}
+	
+	/**
+	 * Checks the decision function of a code generator against {@link Net#getOutput()} on random inputs. Each input is drawn from a range
+	 * between 1 and 100000 wide, and is sometimes 0 as for an empty minute, so decisions on both sides of each threshold are covered.
+	 * @param codeGenerator - Code generator to check.
+	 * @param random - Random stream to draw inputs from.
+	 * @throws IllegalStateException - Thrown if the decision function disagrees with the net.
+	 */
+	private static void checkCodeGenerator(NetCodeGenerator codeGenerator, RandomStream random) {
+		double[] inputs = new double[codeGenerator.getNumInputs()];
+		for(int sample = 0; sample < CODE_CHECK_SAMPLES; sample++) {
+			for(int k = 0; k < inputs.length; k++) {
+				inputs[k] = random.nextDouble() < .2 ? 0 : random.nextDouble() * Math.pow(10, random.nextDouble() * 5);
+			}
+			if(!codeGenerator.agrees(inputs)) {
+				throw new IllegalStateException("Generated decision function disagrees with the net on inputs " + Arrays.toString(inputs));
+			}
+		}
+	}
+	
+	/**
+	 * Simulates the best net again over several runs, each with its own random stream, and prints the mean score and its confidence interval.
+	 * @param codeGenerator - Decision function of the best net.
+	 * @param random - Random stream of the validation. Each run's stream is split from it.
+	 * @param executor - Executor to run simulations on, or null to run them on this thread.
+	 * @throws InterruptedException Thrown if interrupted while waiting for simulations to finish.
+	 */
+	private static void validate(NetCodeGenerator codeGenerator, RandomStream random, ExecutorService executor) throws InterruptedException {
+		int runs = config.getValidationRuns();
+		final double[] scores = new double[runs];
+		final boolean[] survived = new boolean[runs];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for(int r = 0; r < runs; r++) {
+			final int run = r;
+			final Simulation simulation = new Simulation(config, codeGenerator.getNet(), random.split(r));
+			simulation.setCodeGenerator(codeGenerator);
+			tasks.add(new Callable<Void>() {
+				/**
+				 * Runs the simulation and records its result.
+				 */
+				@Override
+				public Void call() {
+					scores[run] = simulation.run();
+					survived[run] = simulation.getGroup().getDaysSurvived() == config.getDaysToRun();
+					return null;
+				}
+			});
+		}
+		invokeAll(tasks, executor);
+		
+		double sum = 0;
+		double sumOfSquares = 0;
+		int survivors = 0;
+		for(int r = 0; r < runs; r++) {
+			sum += scores[r];
+			sumOfSquares += scores[r] * scores[r];
+			if(survived[r]) {
+				survivors++;
+			}
+		}
+		System.out.println();
+		if(codeGenerator.isGenerated()) {
+			System.out.println("Decision Function: generated");
+		} else {
+			System.out.println("Decision Function: compiled, " + codeGenerator.getFallbackReason());
+		}
+		System.out.println("Validation Score: " + sum / runs);
+		System.out.println("Confidence Interval: +/- " + Statistics.halfWidth(runs, sum, sumOfSquares, config.getConfidence()) + " (" + (config.getConfidence() * 100) + "%, " + runs + " validation runs)");
+		System.out.println("Validation Runs Survived: " + survivors + "/" + runs);
+	}
+	
+	/**
+	 * Checks if a score beats the current best score.
+	 * @param score - Score to check.
+	 * @param bestScore - Current best score.
+	 * @return True if score is higher when maximizing, or is nonzero and lower when minimizing.
+	 */
+	private static boolean isBetter(double score, double bestScore) {
+		if(config.isMaximize()) {
+			return score > bestScore;
+		} else {
+			return score != 0 && score < bestScore;
+		}
+	}
+	
+	/**
+	 * Simulates every candidate, in parallel if an executor is given.
+	 * @param candidates - Nets to simulate.
+	 * @param randoms - Random stream of each candidate.
+	 * @param tape - Tape of encounters every candidate replays, or null for candidates to draw their own.
+	 * @param checkpoint - Checkpoint every candidate resumes from, or null to simulate candidates from the first day.
+	 * @param incumbent - Score candidates are pruned against, or NaN to simulate every candidate fully.
+	 * @param executor - Executor to run simulations on, or null to run them on this thread.
+	 * @return Results of each candidate, in the same order as candidates.
+	 * @throws InterruptedException Thrown if interrupted while waiting for simulations to finish.
+	 */
+	private static Evaluation evaluate(List<Net> candidates, List<RandomStream> randoms, EncounterTape tape, final Checkpoint checkpoint, double incumbent, ExecutorService executor) throws InterruptedException {
+		final Evaluation evaluation = new Evaluation(candidates.size());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		
+		if(config.isPopulationBackend()) {
+			// Split the population into one block per thread, each simulated in lockstep
+			int blocks = Math.min(config.getThreads(), candidates.size());
+			for(int b = 0; b < blocks; b++) {
+				final int from = b * candidates.size() / blocks;
+				int to = (b + 1) * candidates.size() / blocks;
+				final PopulationSimulation population = new PopulationSimulation(config, candidates.subList(from, to), randoms.subList(from, to));
+				population.setTape(tape);
+				if(!Double.isNaN(incumbent)) {
+					population.setIncumbent(incumbent);
+				}
+				tasks.add(new Callable<Void>() {
+					/**
+					 * Runs the block of the population and records its results.
+					 */
+					@Override
+					public Void call() {
+						double[] scores = population.run();
+						for(int i = 0; i < scores.length; i++) {
+							evaluation.set(from + i, scores[i], population.toGroup(i), population.isPruned(i));
+						}
+						return null;
+					}
+				});
+			}
+		} else {
+			for(int i = 0; i < candidates.size(); i++) {
+				final int candidate = i;
+				final Simulation simulation = new Simulation(config, candidates.get(i), randoms.get(i));
+				simulation.setTape(tape);
+				if(!Double.isNaN(incumbent)) {
+					simulation.setIncumbent(incumbent);
+				}
+				tasks.add(new Callable<Void>() {
+					/**
+					 * Runs the simulation and records its result.
+					 */
+					@Override
+					public Void call() {
+						double score = simulation.run(checkpoint);
+						evaluation.set(candidate, score, simulation.getGroup(), simulation.isPruned());
+						evaluation.setStopDay(candidate, simulation.getStopDay());
+						evaluation.setConfidence(candidate, simulation.getExtrapolationHalfWidth(), 1);
+						return null;
+					}
+				});
+			}
+		}
+		
+		invokeAll(tasks, executor);
+		return evaluation;
+	}
+	
+	/**
+	 * Simulates every candidate over several replications, each with its own random stream, and scores it by the mean.
+	 * Every candidate gets minReplications. After that, replications are raced: only candidates whose confidence interval still overlaps the
+	 * leader's, and the leader while any do, get another replication, until maxReplications.
+	 * When minimizing, a candidate whose group starved in any replication scores 0.
+	 * @param candidates - Nets to simulate.
+	 * @param randoms - Random stream of each candidate. Replications are split from it.
+	 * @param executor - Executor to run simulations on, or null to run them on this thread.
+	 * @return Mean results of each candidate, in the same order as candidates.
+	 * @throws InterruptedException Thrown if interrupted while waiting for simulations to finish.
+	 */
+	private static Evaluation evaluateReplicated(List<Net> candidates, List<RandomStream> randoms, ExecutorService executor) throws InterruptedException {
+		int size = candidates.size();
+		double[] sums = new double[size];
+		double[] sumsOfSquares = new double[size];
+		int[] counts = new int[size];
+		boolean[] starved = new boolean[size];
+		// Score and group of each replication of each candidate, so the breakdown can come from the replication closest to the mean
+		double[][] scores = new double[size][config.getMaxReplications()];
+		Group[][] groups = new Group[size][config.getMaxReplications()];
+		boolean[] uncertain = new boolean[size];
+		Arrays.fill(uncertain, true);
+		
+		for(int replication = 0; replication < config.getMaxReplications(); replication++) {
+			// Each candidate appears at most once per round, so no net is shared between running simulations
+			List<Integer> pending = new ArrayList<Integer>();
+			List<Net> nets = new ArrayList<Net>();
+			List<RandomStream> streams = new ArrayList<RandomStream>();
+			for(int i = 0; i < size; i++) {
+				if(replication < config.getMinReplications() || uncertain[i]) {
+					pending.add(i);
+					nets.add(candidates.get(i));
+					streams.add(randoms.get(i).split(replication));
+				}
+			}
+			if(pending.isEmpty()) {
+				break;
+			}
+			
+			Evaluation round = evaluate(nets, streams, null, null, Double.NaN, executor);
+			for(int k = 0; k < pending.size(); k++) {
+				int i = pending.get(k);
+				double score = round.getScore(k);
+				sums[i] += score;
+				sumsOfSquares[i] += score * score;
+				starved[i] |= score == 0;
+				scores[i][counts[i]] = score;
+				groups[i][counts[i]] = round.getGroup(k);
+				counts[i]++;
+			}
+			
+			if(replication + 1 >= config.getMinReplications()) {
+				updateUncertain(sums, sumsOfSquares, counts, starved, uncertain);
+			}
+		}
+		
+		Evaluation evaluation = new Evaluation(size);
+		for(int i = 0; i < size; i++) {
+			double mean = sums[i] / counts[i];
+			if(!config.isMaximize() && starved[i]) {
+				mean = 0;
+			}
+			int closest = 0;
+			for(int r = 1; r < counts[i]; r++) {
+				if(Math.abs(scores[i][r] - mean) < Math.abs(scores[i][closest] - mean)) {
+					closest = r;
+				}
+			}
+			evaluation.set(i, mean, groups[i][closest], false);
+			evaluation.setConfidence(i, Statistics.halfWidth(counts[i], sums[i], sumsOfSquares[i], config.getConfidence()), counts[i]);
+		}
+		return evaluation;
+	}
+	
+	/**
+	 * Marks which candidates' rankings against the leader are still uncertain.
+	 * @param sums - Sum of each candidate's scores.
+	 * @param sumsOfSquares - Sum of the squares of each candidate's scores.
+	 * @param counts - Number of replications of each candidate.
+	 * @param starved - If each candidate's group starved in any replication.
+	 * @param uncertain - Set to true for each candidate that needs more replications.
+	 */
+	private static void updateUncertain(double[] sums, double[] sumsOfSquares, int[] counts, boolean[] starved, boolean[] uncertain) {
+		int leader = -1;
+		double leaderMean = config.isMaximize() ? 0 : Double.MAX_VALUE;
+		for(int i = 0; i < sums.length; i++) {
+			if(!config.isMaximize() && starved[i]) {
+				continue;
+			}
+			if(leader < 0 || isBetter(sums[i] / counts[i], leaderMean)) {
+				leader = i;
+				leaderMean = sums[i] / counts[i];
+			}
+		}
+		
+		Arrays.fill(uncertain, false);
+		if(leader < 0) {
+			return;
+		}
+		double leaderHalfWidth = Statistics.halfWidth(counts[leader], sums[leader], sumsOfSquares[leader], config.getConfidence());
+		for(int i = 0; i < sums.length; i++) {
+			if(i == leader || (!config.isMaximize() && starved[i])) {
+				continue;
+			}
+			double halfWidth = Statistics.halfWidth(counts[i], sums[i], sumsOfSquares[i], config.getConfidence());
+			if(Math.abs(sums[i] / counts[i] - leaderMean) <= halfWidth + leaderHalfWidth) {
+				uncertain[i] = true;
+				uncertain[leader] = true;
+			}
+		}
+	}
+	
+	/**
+	 * Retrieves the encounter tape candidates of a generation replay.
+	 * The tape of the run is read from the configured tape file if it already holds one, otherwise it is recorded once and reused.
+	 * Temporary tapes are deleted as soon as they are mapped; the mapping stays valid until it is garbage collected.
+	 * @param generation - Generation being evaluated, or INITIAL_GENERATION.
+	 * @return Tape to replay, or null if encounter tapes are disabled.
+	 * @throws IOException Thrown if the tape cannot be recorded or read.
+	 */
+	private static EncounterTape tapeFor(int generation) throws IOException {
+		if(!config.isEncounterTape()) {
+			return null;
+		}
+		if(!config.isTapePerGeneration() && runTape != null) {
+			return runTape;
+		}
+		
+		EncounterTape tape;
+		if(config.getTapeFile() != null) {
+			File file = new File(config.getTapeFile());
+			if(file.exists()) {
+				tape = EncounterTape.open(file);
+				if(!tape.fits(config)) {
+					throw new IllegalArgumentException("Encounter tape " + file + " does not match the configured days, parties, hours, resources or encounter rates");
+				}
+			} else {
+				tape = EncounterTape.record(config, tapeRandom, file);
+			}
+		} else {
+			File file = File.createTempFile("encounters", ".tape");
+			tape = EncounterTape.record(config, config.isTapePerGeneration() ? tapeRandom.split(generation) : tapeRandom, file);
+			if(!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+		
+		if(!config.isTapePerGeneration()) {
+			runTape = tape;
+		}
+		return tape;
+	}
+	
+	/**
+	 * Runs every task, in parallel if an executor is given, and waits for all of them to finish.
+	 * @param tasks - Tasks to run.
+	 * @param executor - Executor to run tasks on, or null to run them on this thread.
+	 * @throws InterruptedException Thrown if interrupted while waiting for tasks to finish.
+	 */
+	static void invokeAll(List<Callable<Void>> tasks, ExecutorService executor) throws InterruptedException {
+		if(executor == null) {
+			for(Callable<Void> task: tasks) {
+				try {
+					task.call();
+				} catch(RuntimeException e) {
+					throw e;
+				} catch(Exception e) {
+					throw new IllegalStateException("Simulation failed", e);
+				}
+			}
+			return;
+		}
+		
+		List<Future<Void>> futures = executor.invokeAll(tasks);
+		for(Future<Void> future: futures) {
+			try {
+				future.get();
+			} catch(ExecutionException e) {
+				if(e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException)e.getCause();
+				}
+				throw new IllegalStateException("Simulation failed", e.getCause());
+			}
+		}
 	}
 	
 	/**
 	 * Generates a random neural network with the correct input neurons and random weightings.
+	 * @param random - Random stream to draw weightings from.
 	 * @return Generated neural network
 	 */
-	private static Net generateNet() {
+	private static Net generateNet(RandomStream random) {
+		if(config.getHiddenLayers().length > 0) {
+			return generateHiddenNet(random, config.getHiddenLayers());
+		}
 		Layer inputLayer = new Layer("input");
 		Layer outputLayer = new Layer("output");
 		
@@ -231,15 +620,15 @@ public class Hunting {
 		
 		outputLayer.getNeurons().add(new Neuron("choice"));
 		
-		inputLayer.getNeuron("party_size").getOutputConnections().add(new Connection(inputLayer.getNeuron("party_size"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_weight").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_weight"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_cals").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_cals"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_time").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_time"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_resource_calories").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_calories"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_resource_gatherTime").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_gatherTime"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_resource_processTime").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_processTime"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_resource_weight").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_weight"), outputLayer.getNeuron("choice")));
-		inputLayer.getNeuron("current_resource_success").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_success"), outputLayer.getNeuron("choice")));
+		inputLayer.getNeuron("party_size").getOutputConnections().add(new Connection(inputLayer.getNeuron("party_size"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_weight").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_weight"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_cals").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_cals"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_time").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_time"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_resource_calories").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_calories"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_resource_gatherTime").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_gatherTime"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_resource_processTime").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_processTime"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_resource_weight").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_weight"), outputLayer.getNeuron("choice"), random.nextDouble()));
+		inputLayer.getNeuron("current_resource_success").getOutputConnections().add(new Connection(inputLayer.getNeuron("current_resource_success"), outputLayer.getNeuron("choice"), random.nextDouble()));
 		
 		outputLayer.getNeuron("choice").getInputConnections().add(inputLayer.getNeuron("party_size").getOutputConnections().get(0));
 		outputLayer.getNeuron("choice").getInputConnections().add(inputLayer.getNeuron("current_weight").getOutputConnections().get(0));
@@ -255,209 +644,90 @@ public class Hunting {
 	}
 	
 	/**
-	 * Runs the simulation using the input neural net.
-	 * @param decisionNet - Net to use.
-	 * @return Score of simulation.
+	 * Generates a random neural network with the correct input neurons, the configured hidden layers of rectified linear units, and random
+	 * weightings between -1 and 1, so hidden units can switch off.
+	 * @param random - Random stream to draw weightings from.
+	 * @param widths - Number of units in each hidden layer.
+	 * @return Generated neural network
 	 */
-	private static double runSimulation(Net decisionNet) {
-		group = new Group();
-		
-		for(int i = 0; i < NUM_PEOPLE; i++) {
-			group.getMembers().add(new Person());
-		}
+	private static Net generateHiddenNet(RandomStream random, int[] widths) {
+		Layer inputLayer = new Layer("input");
+		inputLayer.getNeurons().add(new InputNeuron(0, "party_size"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_weight"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_cals"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_time"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_resource_calories"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_resource_gatherTime"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_resource_processTime"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_resource_weight"));
+		inputLayer.getNeurons().add(new InputNeuron(0, "current_resource_success"));
 		
-		boolean hunting = true;
-		for(int i = 0; i < NUM_PARTIES; i++) {
-			group.allocateParty(PARTY_SIZE, hunting);
-			hunting = !hunting;
-		}
-		int i = 0;
-		for(; i < DAYS_TO_RUN; i++) {
-			
-			for(int j = 0; j < HOURS_TO_RUN * 60; j++) {
-				
-				for(Party party: group.getParties()) {
-					if(party.isActive()) {
-						party.advanceMinutesForaged();
-						if(party.isGathering()) {
-							party.setGatherTimeRemaining(party.getGatherTimeRemaining() - 1);
-							if(party.getGatherTimeRemaining() == 0) {
-								party.setGathering(false);
-							}
-						} else {
-							Resource resource = generateResource(party);
-							if(resource != null) {
-								//if(resource.getName() != "Super Plant") System.out.println("Party found resource: " + resource.getName());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("party_size")).setValue(party.size());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_weight")).setValue(party.getCurrentWeight());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_cals")).setValue(party.getCurrentCals());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_time")).setValue(j);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_calories")).setValue(resource.getCalories());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_gatherTime")).setValue(resource.getGatherTime());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_processTime")).setValue(resource.getProcessTime());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_weight")).setValue(resource.getProcessTime());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_success")).setValue(resource.getSuccessRate());
-								
-								double decision = decisionNet.getOutput();// Decision will be 0 for ignore, 1 for hunt, 2 for return to camp
-								
-								if(decision == 1) {
-									party.setGathering(true);
-									party.setGatherTimeRemaining(resource.getGatherTime() + resource.getProcessTime());
-									if(Math.random() <= resource.getSuccessRate()) {
-										party.optimizeResources(resource, resource.getWeight());
-									}
-								} else if(decision == 2) {
-									party.setActive(false);
-								}
-							} else {
-								//System.out.println("Party found no resource");
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("party_size")).setValue(party.size());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_weight")).setValue(party.getCurrentWeight());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_cals")).setValue(party.getCurrentCals());
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_time")).setValue(j);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_calories")).setValue(0);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_gatherTime")).setValue(0);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_processTime")).setValue(0);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_weight")).setValue(0);
-								((InputNeuron)decisionNet.getInputLayer().getNeuron("current_resource_success")).setValue(0);
-								
-								double decision = decisionNet.getOutput();// Decision will be 0 for ignore, 1 for hunt, 2 for return to camp
-								
-								if(decision == 2) {
-									party.setActive(false);
-								}
-							}
-						}
-					}
-				}
-			}
-			try {
-				group.feedGroup();
-			} catch(StarvationException e) {
-				break;
-			}
-			
-			for(Party party: group.getParties()) {
-				party.setActive(true);
-				party.setGathering(false);
-				party.setGatherTimeRemaining(0);
-				party.newDay();
-				party.getObtained().forEach(new BiConsumer<Resource, Double>(){
-					/**
-					 * Adds all gathered resources to the total gathered resources of the group.
-					 */
-					@Override
-					public void accept(Resource arg0, Double arg1) {
-						if(!group.getTotalGathered().containsKey(arg0)) {
-							group.getTotalGathered().put(arg0, 0);
-						}
-						group.getTotalGathered().put(arg0, group.getTotalGathered().get(arg0) + (int)Math.ceil(arg1 / arg0.getWeight()));
-					}
-				});
-				party.getObtained().clear();
+		List<Layer> hiddenLayers = new ArrayList<Layer>();
+		Layer previous = inputLayer;
+		for(int l = 0; l < widths.length; l++) {
+			Layer hidden = new Layer("hidden" + l);
+			for(int u = 0; u < widths[l]; u++) {
+				Neuron unit = new Neuron("hidden" + l + "_" + u);
+				unit.setActivationFunction(new RectifiedLinearFunction());
+				hidden.getNeurons().add(unit);
 			}
+			connectLayers(previous, hidden, random);
+			hiddenLayers.add(hidden);
+			previous = hidden;
 		}
 		
-		// If group did not survive, do not score.
-		if(i != DAYS_TO_RUN) {
-			return 0;
-		}
-		
-		// Grant 1000 points for each day survived
-		double score = (i) * 1000;
-		group.setDaysSurvived(i);
-		
-		// Add excess calories to score
-		score += group.getExcessMeat() + group.getExcessPlants();
-		// Subtract the number of deficient days from the score, multiplied by 1000 for significance
-		score -= group.daysDeficient() * 1000;
+		Layer outputLayer = new Layer("output");
+		outputLayer.getNeurons().add(new Neuron("choice"));
+		connectLayers(previous, outputLayer, random);
 		
-		return score;
+		return new Net("network", inputLayer, hiddenLayers, outputLayer);
 	}
-
+	
 	/**
-	 * Generates a random resource.
-	 * @param party - Party to generate resource for.
-	 * @return Animal if party is hunting, Plant if party is gathering, null if no animal is generated.
+	 * Connects every neuron of one layer to every neuron of the next, with random weightings between -1 and 1.
+	 * @param from - Layer before.
+	 * @param to - Layer after.
+	 * @param random - Random stream to draw weightings from.
 	 */
-	private static Resource generateResource(Party party) {
-		double random = Math.random();
-		double total = 0;
-		if(party.isHunting()) {
-			for(Double chance: chancesAnimal.keySet()) {
-				total += chance.doubleValue();
-				if(random < total) {
-					return chancesAnimal.get(chance);
-				}
-			}
-		} else {
-			for(Double chance: chancesPlant.keySet()) {
-				total += chance.doubleValue();
-				if(random < total) {
-					return chancesPlant.get(chance);
-				}
+	private static void connectLayers(Layer from, Layer to, RandomStream random) {
+		for(Neuron unit: to.getNeurons()) {
+			for(Neuron input: from.getNeurons()) {
+				Connection connection = new Connection(input, unit, random.nextDouble() * 2 - 1);
+				input.getOutputConnections().add(connection);
+				unit.getInputConnections().add(connection);
 			}
 		}
-		
-		return null;
 	}
 	
 	/**
 	 * Generates a new network based on input network with mutations on each weighting of +-20%
 	 * @param net - Net to mutate.
+	 * @param random - Random stream to draw mutations from.
 	 * @return New net based on input net.
 	 */
-	private static Net generateMutation(Net net) {
-		Net mutation = generateNet();
+	private static Net generateMutation(Net net, RandomStream random) {
+		Net mutation = generateNet(random);
 		
-		for(Neuron neuron: net.getInputLayer().getNeurons()) {
-			boolean higher = (int)(Math.random() * 2) == 1;
-			if(higher) {
-				mutation.getInputLayer().getNeuron(neuron.getId()).getOutputConnections().get(0).setWeight(neuron.getOutputConnections().get(0).getWeight() * ((Math.random() * 1.2) + 1));
-			}
-			else {
-				mutation.getInputLayer().getNeuron(neuron.getId()).getOutputConnections().get(0).setWeight(neuron.getOutputConnections().get(0).getWeight() * ((Math.random() * 1.2) + .8));
+		// Every layer's connections are mutated in the order they are summed, which for a single layer net is the order of the inputs
+		List<Layer> layers = net.getWeightedLayers();
+		List<Layer> mutatedLayers = mutation.getWeightedLayers();
+		for(int l = 0; l < layers.size(); l++) {
+			List<Neuron> units = layers.get(l).getNeurons();
+			for(int u = 0; u < units.size(); u++) {
+				List<Connection> connections = units.get(u).getInputConnections();
+				List<Connection> mutated = mutatedLayers.get(l).getNeurons().get(u).getInputConnections();
+				for(int k = 0; k < connections.size(); k++) {
+					boolean higher = random.nextBoolean();
+					if(higher) {
+						mutated.get(k).setWeight(connections.get(k).getWeight() * ((random.nextDouble() * 1.2) + 1));
+					}
+					else {
+						mutated.get(k).setWeight(connections.get(k).getWeight() * ((random.nextDouble() * 1.2) + .8));
+					}
+				}
 			}
 		}
 		
 		return mutation;
 	}
-	
-	/**
-	 * Calculate the greatest common denominator of two numbers.
-	 * @param a - First number.
-	 * @param b - Second number.
-	 * @return Greatest common denominator.
-	 */
-	private static long gcd(long a, long b) {
-	    while (b > 0) {
-	        long temp = b;
-	        b = a % b;
-	        a = temp;
-	    }
-	    return a;
-	}
-	
-	/**
-	 * Calculate the least common multiple of two numbers.
-	 * @param a - First number.
-	 * @param b - Second number.
-	 * @return Least common multiple.
-	 */
-	private static long lcm(long a, long b) {
-	    return a * (b / gcd(a, b));
-	}
-
-	/**
-	 * Calculate the least common multiple of a list of numbers.
-	 * @param input - List to calculate least common multiple of.
-	 * @return Least common multiple of list.
-	 */
-	private static long lcm(List<Long> input) {
-	    long result = input.get(0).longValue();
-	    for(int i = 1; i < input.size(); i++) {
-	    	result = lcm(result, input.get(i).longValue());
-	    }
-	    return result;
-	}
-}
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package main.java.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import main.java.neural.NetCodeGenerator;
+
+/**
+ * This class represents many bands foraging a shared grid of tiles, each tile with its own stock of resources. Bands on the same tile forage
+ * from the same stock, and a band that goes short of food moves to a neighbouring tile overnight.
+ * The rows of the grid are split into regions that worker threads advance in parallel, one day at a time. Regions share nothing during a day,
+ * bands crossing into another region are exchanged through lock-free queues at the day boundary, so time scales with the number of workers.
+ * @author Kyle McVay
+ */
+public class Landscape {
+	private Configuration config;
+	private int width;
+	private int height;
+	private Region[] regions;
+	private int[] regionOfRow;
+	private Band[] bands;
+	
+	/**
+	 * Constructs a new Landscape, placing every band on a random tile.
+	 * @param config - Configuration to simulate.
+	 * @param codeGenerator - Decision function every band follows.
+	 * @param random - Random stream of the landscape. Each band's streams are split from it.
+	 */
+	public Landscape(Configuration config, NetCodeGenerator codeGenerator, RandomStream random) {
+		this.config = config;
+		this.width = config.getLandscapeWidth();
+		this.height = config.getLandscapeHeight();
+		this.regions = new Region[config.getRegions()];
+		this.regionOfRow = new int[height];
+		for(int r = 0; r < regions.length; r++) {
+			int firstRow = r * height / regions.length;
+			int endRow = (r + 1) * height / regions.length;
+			regions[r] = new Region(config, firstRow * width, endRow * width);
+			for(int row = firstRow; row < endRow; row++) {
+				regionOfRow[row] = r;
+			}
+		}
+		
+		this.bands = new Band[config.getNumBands()];
+		for(int b = 0; b < bands.length; b++) {
+			RandomStream stream = random.split(b);
+			int tile = Math.min((int)(stream.split(0).nextDouble() * width * height), width * height - 1);
+			Simulation simulation = new Simulation(config, codeGenerator.getNet(), stream.split(1));
+			simulation.setCodeGenerator(codeGenerator);
+			simulation.setStock(regionOf(tile).getStock(tile));
+			simulation.start();
+			bands[b] = new Band(b, simulation, stream.split(2), tile);
+			regionOf(tile).getBands().add(bands[b]);
+		}
+	}
+	
+	/**
+	 * Simulates every day of every band.
+	 * @param executor - Executor to advance regions on, or null to advance them on this thread.
+	 * @throws InterruptedException Thrown if interrupted while waiting for a day to finish.
+	 */
+	public void run(ExecutorService executor) throws InterruptedException {
+		for(int day = 0; day < config.getDaysToRun(); day++) {
+			final int today = day;
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for(final Region region: regions) {
+				tasks.add(new Callable<Void>() {
+					/**
+					 * Advances the region by one day.
+					 */
+					@Override
+					public Void call() {
+						region.runDay(today, Landscape.this);
+						return null;
+					}
+				});
+			}
+			Hunting.invokeAll(tasks, executor);
+		}
+	}
+	
+	/**
+	 * Picks a random tile next to a tile, up, down, left or right.
+	 * @param tile - Index of tile.
+	 * @param random - Random stream to pick with.
+	 * @return Index of neighbouring tile, or tile itself if the pick falls off the edge of the grid.
+	 */
+	public int neighbour(int tile, RandomStream random) {
+		int x = tile % width;
+		int y = tile / width;
+		int direction = (int)(random.nextDouble() * 4);
+		if(direction == 0) {
+			y--;
+		} else if(direction == 1) {
+			y++;
+		} else if(direction == 2) {
+			x--;
+		} else {
+			x++;
+		}
+		if(x < 0 || x >= width || y < 0 || y >= height) {
+			return tile;
+		}
+		return y * width + x;
+	}
+	
+	/**
+	 * Retrieves the region a tile belongs to.
+	 * @param tile - Index of tile.
+	 * @return Region of tile.
+	 */
+	public Region regionOf(int tile) {
+		return regions[regionOfRow[tile / width]];
+	}
+	
+	/**
+	 * Retrieves the score of every band.
+	 * @return Score of each band, 0 if it starved, in band order.
+	 */
+	public double[] getScores() {
+		double[] scores = new double[bands.length];
+		for(int b = 0; b < bands.length; b++) {
+			scores[b] = bands[b].score();
+		}
+		return scores;
+	}
+	
+	/**
+	 * Retrieves the number of bands that survived every day.
+	 * @return Number of bands.
+	 */
+	public int getSurvivors() {
+		int survivors = 0;
+		for(Band band: bands) {
+			if(!band.isStarved()) {
+				survivors++;
+			}
+		}
+		return survivors;
+	}
+	
+	/**
+	 * Retrieves the number of moves made by every band.
+	 * @return Number of moves.
+	 */
+	public int getMigrations() {
+		int migrations = 0;
+		for(Region region: regions) {
+			migrations += region.getMigrations();
+		}
+		return migrations;
+	}
+}
@@ -0,0 +1,499 @@
+package main.java.simulation;
+
+import java.util.List;
+
+import main.java.neural.Net;
+import main.java.neural.NetBatch;
+import main.java.people.CarryLoad;
+import main.java.people.Group;
+import main.java.people.Person;
+import main.java.resource.EncounterSchedule;
+import main.java.resource.Resource;
+import main.java.resource.ResourceSampler;
+
+/**
+ * This class represents the simulation of a whole population of nets at once. All individuals advance through each minute in lockstep, and the
+ * state of every party and person is kept in flat primitive arrays indexed by individual, party and member rather than in Group, Party and Person objects.
+ * Each individual draws from its own random stream in the same order as Simulation's minute by minute engine, so both give identical scores.
+ * With an encounter tape every individual replays the same encounters instead.
+ * @author Kyle McVay
+ */
+public class PopulationSimulation {
+	private Configuration config;
+	private RandomStream[] randoms;
+	private int individuals;
+	private int numParties;
+	private int partySize;
+	private int numMembers;
+	private int numResources;
+	private int numInputs;
+	
+	// Decision nets, the block of inputs indexed by input * individuals + individual, and the decisions pending in the current minute
+	// for one party of every individual
+	private NetBatch nets;
+	private double[] inputBlock;
+	private double[] decisions;
+	private int[] pendingIndividuals;
+	private Resource[] pendingResources;
+	private int[] pendingEncounters;
+	private int partySizeInput;
+	private int currentWeightInput;
+	private int currentCalsInput;
+	private int currentTimeInput;
+	private int resourceCaloriesInput;
+	private int resourceGatherTimeInput;
+	private int resourceProcessTimeInput;
+	private int resourceWeightInput;
+	private int resourceSuccessInput;
+	
+	private Resource[] resources;
+	private EncounterSchedule schedule;
+	// Samplers of each period of the current day
+	private ResourceSampler[] animals;
+	private ResourceSampler[] plants;
+	private EncounterTape tape;
+	
+	// Party state, indexed by individual * numParties + party
+	private boolean[] hunting;
+	private boolean[] active;
+	private boolean[] gathering;
+	private int[] gatherTimeRemaining;
+	private int[] minutesForaged;
+	private double[] maxWeight;
+	private int[] cursors;
+	// Carried resources, one load per party
+	private CarryLoad loads;
+	
+	// Person state, indexed by individual * numMembers + member
+	private int[] daysDeficient;
+	private int[] deficientStreak;
+	private double[] neededMeat;
+	private double[] neededPlants;
+	private double[] sharesMeat;
+	private double[] sharesPlants;
+	
+	// Group state, indexed by individual, and tallies indexed by individual * numResources + resource
+	private double[] excessMeat;
+	private double[] excessPlants;
+	private int[] totalGathered;
+	private boolean[] gathered;
+	private boolean[] finished;
+	private boolean[] pruned;
+	private double[] scores;
+	private double incumbent = Double.NaN;
+	
+	/**
+	 * Constructs a new PopulationSimulation.
+	 * @param config - Configuration to simulate.
+	 * @param nets - Nets to simulate, one per individual. Nets must be single layer nets with one output, like those produced by Hunting.
+	 * @param randoms - Random stream of each individual.
+	 * @throws IllegalArgumentException - Thrown if a net is not a single layer net with the same inputs as the first.
+	 */
+	public PopulationSimulation(Configuration config, List<Net> nets, List<RandomStream> randoms) {
+		this.config = config;
+		this.randoms = randoms.toArray(new RandomStream[randoms.size()]);
+		this.individuals = nets.size();
+		this.numParties = config.getNumParties();
+		this.partySize = config.getPartySize();
+		this.numMembers = config.getNumPeople();
+		this.numResources = config.getResources().size();
+		this.schedule = config.getEncounterSchedule();
+		
+		this.resources = config.getResources().toArray(new Resource[numResources]);
+		
+		compileNets(nets);
+		
+		int partyCount = individuals * numParties;
+		this.hunting = new boolean[numParties];
+		for(int p = 0; p < numParties; p++) {
+			// Parties alternate between hunting and gathering, starting with hunting
+			hunting[p] = p % 2 == 0;
+		}
+		this.active = new boolean[partyCount];
+		this.gathering = new boolean[partyCount];
+		this.gatherTimeRemaining = new int[partyCount];
+		this.minutesForaged = new int[partyCount];
+		this.maxWeight = new double[partyCount];
+		this.loads = new CarryLoad(partyCount, config.getResources());
+		
+		this.daysDeficient = new int[individuals * numMembers];
+		this.deficientStreak = new int[individuals * numMembers];
+		this.neededMeat = new double[numMembers];
+		this.neededPlants = new double[numMembers];
+		this.sharesMeat = new double[numMembers];
+		this.sharesPlants = new double[numMembers];
+		
+		this.excessMeat = new double[individuals];
+		this.excessPlants = new double[individuals];
+		this.totalGathered = new int[individuals * numResources];
+		this.gathered = new boolean[individuals * numResources];
+		this.finished = new boolean[individuals];
+		this.pruned = new boolean[individuals];
+		this.scores = new double[individuals];
+	}
+	
+	/**
+	 * Sets the score every individual has to beat. When set, an individual stops as soon as it can no longer beat it.
+	 * @param incumbent - Current best score.
+	 */
+	public void setIncumbent(double incumbent) {
+		this.incumbent = incumbent;
+	}
+	
+	/**
+	 * Sets the tape of encounters every individual replays instead of drawing its own.
+	 * @param tape - Tape covering the simulated days and parties, or null to draw encounters from the random streams.
+	 */
+	public void setTape(EncounterTape tape) {
+		this.tape = tape;
+		if(tape != null && cursors == null) {
+			cursors = new int[individuals * numParties];
+		}
+	}
+	
+	/**
+	 * Retrieves if an individual was stopped early because it could not beat the incumbent score.
+	 * @param individual - Index of individual.
+	 * @return True if individual was pruned.
+	 */
+	public boolean isPruned(int individual) {
+		return pruned[individual];
+	}
+	
+	/**
+	 * Retrieves the number of individuals in this population.
+	 * @return Number of individuals.
+	 */
+	public int size() {
+		return individuals;
+	}
+	
+	/**
+	 * Runs the simulation for every individual.
+	 * @return Score of each individual. 0 if the group starved or the individual was pruned.
+	 */
+	public double[] run() {
+		if(partySize * numParties > numMembers) {
+			throw new IllegalArgumentException("Not enough free members to allocate a party of that size");
+		}
+		double maxDailyExcess = Double.isNaN(incumbent) ? 0 : Simulation.maxDailyExcess(config);
+		int minutes = config.getHoursToRun() * 60;
+		int remaining = individuals;
+		
+		for(int i = 0; i < individuals * numParties; i++) {
+			active[i] = true;
+		}
+		
+		for(int day = 0; day < config.getDaysToRun() && remaining > 0; day++) {
+			animals = schedule.getAnimals(day);
+			plants = schedule.getPlants(day);
+			for(int i = 0; i < individuals; i++) {
+				if(!finished[i]) {
+					updateMaxWeights(i);
+					if(tape != null) {
+						for(int p = 0; p < numParties; p++) {
+							cursors[i * numParties + p] = tape.start(day, p);
+						}
+					}
+				}
+			}
+			
+			for(int j = 0; j < minutes; j++) {
+				// Parties of an individual draw in order, so each party index advances across every individual before the next
+				for(int p = 0; p < numParties; p++) {
+					advanceMinute(p, day, j);
+				}
+			}
+			
+			for(int i = 0; i < individuals; i++) {
+				if(finished[i]) {
+					continue;
+				}
+				if(!feed(i)) {
+					finished[i] = true;
+					scores[i] = 0;
+					remaining--;
+					continue;
+				}
+				endDay(i);
+				if(!Double.isNaN(incumbent) && !Simulation.canBeat(config, incumbent, day + 1, excessMeat[i] + excessPlants[i], daysDeficient(i), maxDailyExcess)) {
+					finished[i] = true;
+					pruned[i] = true;
+					scores[i] = 0;
+					remaining--;
+				}
+			}
+		}
+		
+		for(int i = 0; i < individuals; i++) {
+			if(!finished[i]) {
+				// Grant 1000 points for each day survived, add excess calories and subtract deficient days
+				double score = (config.getDaysToRun()) * 1000;
+				score += excessMeat[i] + excessPlants[i];
+				score -= daysDeficient(i) * 1000;
+				scores[i] = score;
+			}
+		}
+		
+		return scores;
+	}
+	
+	/**
+	 * Builds a group holding the results of an individual: days survived, excess calories and resources gathered.
+	 * Members and parties are not included.
+	 * @param individual - Index of individual.
+	 * @return Group with the individual's results.
+	 */
+	public Group toGroup(int individual) {
+		Group group = new Group();
+		group.setExcessMeat(excessMeat[individual]);
+		group.setExcessPlants(excessPlants[individual]);
+		if(!finished[individual]) {
+			group.setDaysSurvived(config.getDaysToRun());
+		}
+		for(int r = 0; r < numResources; r++) {
+			if(gathered[individual * numResources + r]) {
+				group.tally(resources[r], totalGathered[individual * numResources + r]);
+			}
+		}
+		return group;
+	}
+	
+	/**
+	 * Compiles every net into one batch and finds the index of each named input.
+	 * @param nets - Nets to simulate, one per individual.
+	 */
+	private void compileNets(List<Net> nets) {
+		this.nets = new NetBatch(nets);
+		this.numInputs = this.nets.getNumInputs();
+		this.partySizeInput = this.nets.inputIndex("party_size");
+		this.currentWeightInput = this.nets.inputIndex("current_weight");
+		this.currentCalsInput = this.nets.inputIndex("current_cals");
+		this.currentTimeInput = this.nets.inputIndex("current_time");
+		this.resourceCaloriesInput = this.nets.inputIndex("current_resource_calories");
+		this.resourceGatherTimeInput = this.nets.inputIndex("current_resource_gatherTime");
+		this.resourceProcessTimeInput = this.nets.inputIndex("current_resource_processTime");
+		this.resourceWeightInput = this.nets.inputIndex("current_resource_weight");
+		this.resourceSuccessInput = this.nets.inputIndex("current_resource_success");
+		
+		this.inputBlock = new double[individuals * numInputs];
+		this.pendingIndividuals = new int[individuals];
+		this.pendingResources = new Resource[individuals];
+		this.pendingEncounters = new int[individuals];
+		this.decisions = new double[individuals];
+	}
+	
+	/**
+	 * Advances one party of every individual still running by one minute. Parties searching for resources write their inputs into one block,
+	 * which is evaluated against every net at once before the decisions are carried out.
+	 * @param p - Index of party within each individual.
+	 * @param day - Current day.
+	 * @param minute - Current minute of the day.
+	 */
+	private void advanceMinute(int p, int day, int minute) {
+		int pending = 0;
+		for(int individual = 0; individual < individuals; individual++) {
+			int party = individual * numParties + p;
+			if(finished[individual] || !active[party]) {
+				continue;
+			}
+			minutesForaged[party]++;
+			if(gathering[party]) {
+				gatherTimeRemaining[party]--;
+				if(gatherTimeRemaining[party] == 0) {
+					gathering[party] = false;
+				}
+				continue;
+			}
+			Resource resource;
+			int encounter = -1;
+			if(tape == null) {
+				int period = schedule.period(minute);
+				double random = randoms[individual].nextDouble();
+				resource = hunting[p] ? animals[period].sample(random) : plants[period].sample(random);
+			} else {
+				// Skip encounters passed while gathering
+				int end = tape.end(day, p);
+				while(cursors[party] < end && tape.minute(cursors[party]) < minute) {
+					cursors[party]++;
+				}
+				encounter = cursors[party];
+				resource = encounter < end && tape.minute(encounter) == minute ? resources[tape.resource(encounter)] : null;
+			}
+			writeInputs(individual, party, minute, resource);
+			pendingIndividuals[pending] = individual;
+			pendingResources[pending] = resource;
+			pendingEncounters[pending] = encounter;
+			pending++;
+		}
+		
+		// Every individual's net is evaluated, and the decisions of individuals not searching are ignored
+		if(pending > 0) {
+			nets.evaluate(inputBlock, decisions);// Decision will be 0 for ignore, 1 for hunt, 2 for return to camp
+		}
+		
+		for(int j = 0; j < pending; j++) {
+			int individual = pendingIndividuals[j];
+			int party = individual * numParties + p;
+			Resource resource = pendingResources[j];
+			if(resource != null && decisions[individual] == 1) {
+				gathering[party] = true;
+				gatherTimeRemaining[party] = resource.getGatherTime() + resource.getProcessTime();
+				double roll = tape == null ? randoms[individual].nextDouble() : tape.roll(pendingEncounters[j]);
+				if(roll <= resource.getSuccessRate()) {
+					loads.add(party, resource, resource.getWeight(), maxWeight[party]);
+				}
+			} else if(decisions[individual] == 2) {
+				active[party] = false;
+			}
+		}
+	}
+	
+	/**
+	 * Writes the inputs of a party's decision net into the input block.
+	 * @param individual - Index of individual.
+	 * @param party - Index of party.
+	 * @param minute - Current minute of the day.
+	 * @param resource - Resource encountered, or null if nothing was encountered.
+	 */
+	private void writeInputs(int individual, int party, int minute, Resource resource) {
+		inputBlock[partySizeInput * individuals + individual] = partySize;
+		inputBlock[currentWeightInput * individuals + individual] = loads.getWeight(party);
+		inputBlock[currentCalsInput * individuals + individual] = loads.getCalories(party);
+		inputBlock[currentTimeInput * individuals + individual] = minute;
+		if(resource != null) {
+			inputBlock[resourceCaloriesInput * individuals + individual] = resource.getCalories();
+			inputBlock[resourceGatherTimeInput * individuals + individual] = resource.getGatherTime();
+			inputBlock[resourceProcessTimeInput * individuals + individual] = resource.getProcessTime();
+			inputBlock[resourceWeightInput * individuals + individual] = resource.getProcessTime();
+			inputBlock[resourceSuccessInput * individuals + individual] = resource.getSuccessRate();
+		} else {
+			inputBlock[resourceCaloriesInput * individuals + individual] = 0;
+			inputBlock[resourceGatherTimeInput * individuals + individual] = 0;
+			inputBlock[resourceProcessTimeInput * individuals + individual] = 0;
+			inputBlock[resourceWeightInput * individuals + individual] = 0;
+			inputBlock[resourceSuccessInput * individuals + individual] = 0;
+		}
+	}
+	
+	/**
+	 * Calculates the maximum weight each party of an individual can carry today.
+	 * @param individual - Index of individual.
+	 */
+	private void updateMaxWeights(int individual) {
+		for(int p = 0; p < numParties; p++) {
+			double max = 0.0;
+			for(int m = p * partySize; m < (p + 1) * partySize; m++) {
+				max += Person.MAX_WEIGHT * (1 - deficientStreak[individual * numMembers + m] * .05);
+			}
+			maxWeight[individual * numParties + p] = max;
+		}
+	}
+	
+	/**
+	 * Retrieves the number of minutes a member of an individual's group foraged today.
+	 * @param individual - Index of individual.
+	 * @param member - Index of member.
+	 * @return Minutes foraged by member's party, or 0 if member is not in a party.
+	 */
+	private int minutesForaged(int individual, int member) {
+		int p = member / partySize;
+		if(p >= numParties) {
+			return 0;
+		}
+		return minutesForaged[individual * numParties + p];
+	}
+	
+	/**
+	 * Feeds every member of an individual's group, in the same way as Group.feedGroup.
+	 * @param individual - Index of individual.
+	 * @return False if a member starved.
+	 */
+	private boolean feed(int individual) {
+		double totalCalsMeat = 0.0;
+		double totalCalsPlants = 0.0;
+		for(int p = 0; p < numParties; p++) {
+			if(hunting[p]) {
+				totalCalsMeat += loads.getCalories(individual * numParties + p);
+			} else {
+				totalCalsPlants += loads.getCalories(individual * numParties + p);
+			}
+		}
+		
+		for(int m = 0; m < numMembers; m++) {
+			int minutes = minutesForaged(individual, m);
+			neededMeat[m] = calsMeatNeeded(minutes);
+			neededPlants[m] = calsPlantsNeeded(minutes);
+		}
+		excessMeat[individual] += Group.share(totalCalsMeat, neededMeat, sharesMeat, numMembers);
+		excessPlants[individual] += Group.share(totalCalsPlants, neededPlants, sharesPlants, numMembers);
+		
+		for(int m = 0; m < numMembers; m++) {
+			int person = individual * numMembers + m;
+			if(sharesMeat[m] < neededMeat[m] || sharesPlants[m] < neededPlants[m]) {
+				daysDeficient[person]++;
+				deficientStreak[person]++;
+				if(deficientStreak[person] >= 20) {
+					return false;
+				}
+			} else {
+				deficientStreak[person] = 0;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Retrieves the calories of meat a member needs, in the same way as Person.getCalsMeatNeeded.
+	 * @param minutesForaged - Minutes member foraged today.
+	 * @return Calories needed.
+	 */
+	private static double calsMeatNeeded(int minutesForaged) {
+		return ((minutesForaged * Person.CALS_BURNED_FORAGING) + (((24 * 60) - minutesForaged) * Person.CALS_BURNED_AT_REST)) * Person.MEAT_RATIO;
+	}
+	
+	/**
+	 * Retrieves the calories of plants a member needs, in the same way as Person.getCalsPlantsNeeded.
+	 * @param minutesForaged - Minutes member foraged today.
+	 * @return Calories needed.
+	 */
+	private static double calsPlantsNeeded(int minutesForaged) {
+		return ((minutesForaged * Person.CALS_BURNED_FORAGING) + (((24 * 60) - minutesForaged) * Person.CALS_BURNED_AT_REST)) * (1 - Person.MEAT_RATIO);
+	}
+	
+	/**
+	 * Adds the day's resources to an individual's tallies and resets its parties for the next day.
+	 * @param individual - Index of individual.
+	 */
+	private void endDay(int individual) {
+		for(int p = 0; p < numParties; p++) {
+			int party = individual * numParties + p;
+			active[party] = true;
+			gathering[party] = false;
+			gatherTimeRemaining[party] = 0;
+			minutesForaged[party] = 0;
+			for(int r = 0; r < numResources; r++) {
+				if(loads.isCarrying(party, r)) {
+					totalGathered[individual * numResources + r] += (int)Math.ceil(loads.getCarried(party, r) / resources[r].getWeight());
+					gathered[individual * numResources + r] = true;
+				}
+			}
+			loads.clear(party);
+		}
+	}
+	
+	/**
+	 * Retrieves the most days any member of an individual's group has been deficient.
+	 * @param individual - Index of individual.
+	 * @return Days a member was deficient in calories.
+	 */
+	private int daysDeficient(int individual) {
+		int max = 0;
+		for(int m = 0; m < numMembers; m++) {
+			if(daysDeficient[individual * numMembers + m] > max) {
+				max = daysDeficient[individual * numMembers + m];
+			}
+		}
+		return max;
+	}
+}
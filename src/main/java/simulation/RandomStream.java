@@ -0,0 +1,85 @@
+package main.java.simulation;
+
+/**
+ * This class represents a seeded stream of random numbers (SplitMix64). A stream can be split into independent child streams derived
+ * deterministically from its seed and a key, so every simulation can own a reproducible stream without sharing a generator between threads.
+ * @author Kyle McVay
+ */
+public class RandomStream {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private long seed;
+	private long state;
+	
+	/**
+	 * Constructs a new RandomStream from a seed.
+	 * @param seed - Seed of stream.
+	 */
+	public RandomStream(long seed) {
+		this.seed = seed;
+		this.state = mix(seed);
+	}
+	
+	/**
+	 * Derives an independent child stream. The child depends only on this stream's seed and the key, not on how many numbers have been drawn.
+	 * @param key - Key of child, for example a generation or individual index.
+	 * @return Child stream.
+	 */
+	public RandomStream split(long key) {
+		return new RandomStream(mix(seed + GOLDEN_GAMMA * (key + 1)));
+	}
+	
+	/**
+	 * Copies this stream at its current position. The copy draws the same numbers this stream would draw next, independently of it.
+	 * @return Copy of stream.
+	 */
+	public RandomStream copy() {
+		RandomStream copy = new RandomStream(seed);
+		copy.state = state;
+		return copy;
+	}
+	
+	/**
+	 * Retrieves the seed of this stream.
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Retrieves the next random long.
+	 * @return Uniformly distributed long.
+	 */
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+	
+	/**
+	 * Retrieves the next random double.
+	 * @return Uniformly distributed double in [0, 1).
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+	/**
+	 * Retrieves the next random boolean.
+	 * @return True or false with equal chance.
+	 */
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+	
+	/**
+	 * Scrambles the bits of a long.
+	 * @param z - Value to scramble.
+	 * @return Scrambled value.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
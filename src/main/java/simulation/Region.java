@@ -0,0 +1,139 @@
+package main.java.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import main.java.resource.ResourceStock;
+
+/**
+ * This class represents a block of consecutive tiles of a landscape, with the stocks of its tiles and the bands camped on them. A region is
+ * advanced a day at a time by a single worker thread, so nothing inside it is shared. Bands that move to a tile of another region are passed
+ * through that region's lock-free queue of arrivals, and only join it at the start of the next day.
+ * @author Kyle McVay
+ */
+public class Region {
+	private int firstTile;
+	private int endTile;
+	private ResourceStock[] stocks;
+	private List<Band> bands;
+	// Bands arriving for even and odd days, so a band handed over during a day is not picked up until the next
+	private List<ConcurrentLinkedQueue<Band>> arrivals;
+	private int migrations;
+	
+	/**
+	 * Constructs a new Region with no bands and every stock full.
+	 * @param config - Configuration being simulated.
+	 * @param firstTile - Index of the region's first tile.
+	 * @param endTile - Index after the region's last tile.
+	 */
+	@SuppressWarnings("unchecked")
+	public Region(Configuration config, int firstTile, int endTile) {
+		this.firstTile = firstTile;
+		this.endTile = endTile;
+		if(config.isStockLimited()) {
+			this.stocks = new ResourceStock[endTile - firstTile];
+			for(int t = 0; t < stocks.length; t++) {
+				stocks[t] = new ResourceStock(config.getResources(), config.getEncounterSchedule());
+			}
+		}
+		this.bands = new ArrayList<Band>();
+		this.arrivals = new ArrayList<ConcurrentLinkedQueue<Band>>();
+		arrivals.add(new ConcurrentLinkedQueue<Band>());
+		arrivals.add(new ConcurrentLinkedQueue<Band>());
+	}
+	
+	/**
+	 * Checks if a tile belongs to this region.
+	 * @param tile - Index of tile.
+	 * @return True if the tile is in this region.
+	 */
+	public boolean contains(int tile) {
+		return tile >= firstTile && tile < endTile;
+	}
+	
+	/**
+	 * Retrieves the stock of a tile of this region.
+	 * @param tile - Index of tile.
+	 * @return Stock of tile, or null if stocks are unlimited.
+	 */
+	public ResourceStock getStock(int tile) {
+		return stocks == null ? null : stocks[tile - firstTile];
+	}
+	
+	/**
+	 * Retrieves the bands camped in this region.
+	 * @return Bands, in id order at the start of each day.
+	 */
+	public List<Band> getBands() {
+		return bands;
+	}
+	
+	/**
+	 * Retrieves the number of moves made by bands of this region.
+	 * @return Number of moves.
+	 */
+	public int getMigrations() {
+		return migrations;
+	}
+	
+	/**
+	 * Hands a band that moved onto one of this region's tiles over to this region. May be called from any thread.
+	 * @param band - Band arriving.
+	 * @param day - First day the band forages in this region.
+	 */
+	public void arrive(Band band, int day) {
+		arrivals.get(day % 2).offer(band);
+	}
+	
+	/**
+	 * Simulates one day of every band in this region. Bands that went short of food then move to a neighbouring tile, leaving the region if
+	 * the tile belongs to another.
+	 * @param day - Day to simulate.
+	 * @param landscape - Landscape this region is part of.
+	 */
+	public void runDay(int day, Landscape landscape) {
+		// Sort in the bands that arrived since the last day, so results do not depend on which thread finished first
+		Band arrived;
+		while((arrived = arrivals.get(day % 2).poll()) != null) {
+			bands.add(arrived);
+		}
+		Collections.sort(bands, Band.BY_ID);
+		
+		if(stocks != null) {
+			for(ResourceStock stock: stocks) {
+				stock.startDay(day);
+			}
+		}
+		for(Band band: bands) {
+			if(!band.isStarved()) {
+				band.runDay(day, getStock(band.getTile()));
+			}
+		}
+		if(stocks != null) {
+			for(ResourceStock stock: stocks) {
+				stock.endDay();
+			}
+		}
+		
+		Iterator<Band> iterator = bands.iterator();
+		while(iterator.hasNext()) {
+			Band band = iterator.next();
+			if(band.isStarved() || !band.wentShort()) {
+				continue;
+			}
+			int to = landscape.neighbour(band.getTile(), band.getRandom());
+			if(to == band.getTile()) {
+				continue;
+			}
+			migrations++;
+			band.setTile(to);
+			if(!contains(to)) {
+				iterator.remove();
+				landscape.regionOf(to).arrive(band, day + 1);
+			}
+		}
+	}
+}
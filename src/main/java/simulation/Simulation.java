@@ -0,0 +1,634 @@
+package main.java.simulation;
+
+import java.util.List;
+
+import main.java.neural.CompiledNet;
+import main.java.neural.NetCodeGenerator;
+import main.java.neural.Net;
+import main.java.people.Group;
+import main.java.people.Party;
+import main.java.people.Person;
+import main.java.people.StarvationException;
+import main.java.resource.EncounterSchedule;
+import main.java.resource.Resource;
+import main.java.resource.ResourceSampler;
+import main.java.resource.ResourceStock;
+
+/**
+ * This class represents a single run of the simulation for one neural net. All state of a run is kept here, so simulations may be run in parallel.
+ * @author Kyle McVay
+ */
+public class Simulation {
+	private Configuration config;
+	private Net decisionNet;
+	private CompiledNet compiledNet;
+	private NetCodeGenerator codeGenerator;
+	// Slots of the compiled net's inputs
+	private int partySizeInput;
+	private int weightInput;
+	private int calsInput;
+	private int timeInput;
+	private int resourceCaloriesInput;
+	private int resourceGatherTimeInput;
+	private int resourceProcessTimeInput;
+	private int resourceWeightInput;
+	private int resourceSuccessInput;
+	private RandomStream random;
+	private Group group;
+	private EncounterSchedule schedule;
+	// Samplers of each period of the current day
+	private ResourceSampler[] animals;
+	private ResourceSampler[] plants;
+	private ResourceStock stock;
+	private boolean sharedStock;
+	private EventQueue events;
+	private EncounterTape tape;
+	private int[] cursors;
+	private double incumbent = Double.NaN;
+	private boolean pruned;
+	private int checkpointDay;
+	private Checkpoint checkpoint;
+	private int stopDay;
+	private double extrapolationHalfWidth;
+	
+	/**
+	 * Constructs a new Simulation of the given net.
+	 * @param config - Configuration to simulate.
+	 * @param decisionNet - Net to use. It is compiled at the start of each run and never changed, so it may be shared with other simulations.
+	 * @param random - Random stream of this simulation.
+	 */
+	public Simulation(Configuration config, Net decisionNet, RandomStream random) {
+		this.config = config;
+		this.decisionNet = decisionNet;
+		this.random = random;
+		this.schedule = config.getEncounterSchedule();
+	}
+	
+	/**
+	 * Retrieves the group simulated by this simulation.
+	 * @return The group, or null if the simulation has not been run.
+	 */
+	public Group getGroup() {
+		return group;
+	}
+	
+	/**
+	 * Retrieves the net simulated by this simulation.
+	 * @return The decision net.
+	 */
+	public Net getDecisionNet() {
+		return decisionNet;
+	}
+	
+	/**
+	 * Sets the score this simulation has to beat. When set, the simulation stops as soon as it can no longer beat it.
+	 * @param incumbent - Current best score.
+	 */
+	public void setIncumbent(double incumbent) {
+		this.incumbent = incumbent;
+	}
+	
+	/**
+	 * Sets the tape of encounters this simulation replays instead of drawing its own.
+	 * @param tape - Tape covering the simulated days and parties, or null to draw encounters from the random stream.
+	 */
+	public void setTape(EncounterTape tape) {
+		this.tape = tape;
+	}
+	
+	/**
+	 * Sets the generator of this simulation's decision function, so decisions run code generated for the net rather than the compiled net.
+	 * @param codeGenerator - Generator built for this simulation's net, or null to compile the net.
+	 */
+	public void setCodeGenerator(NetCodeGenerator codeGenerator) {
+		this.codeGenerator = codeGenerator;
+	}
+	
+	/**
+	 * Sets a stock of resources this simulation forages from, shared with other simulations on the same thread. The owner of a shared stock
+	 * starts and ends each of its days, rather than this simulation.
+	 * @param stock - Shared stock, or null for the simulation to keep its own stock if the configuration limits any.
+	 */
+	public void setStock(ResourceStock stock) {
+		this.stock = stock;
+		this.sharedStock = stock != null;
+	}
+	
+	/**
+	 * Retrieves if this simulation was stopped early because it could not beat the incumbent score.
+	 * @return True if simulation was pruned.
+	 */
+	public boolean isPruned() {
+		return pruned;
+	}
+	
+	/**
+	 * Sets the day at the end of which the simulation saves a checkpoint.
+	 * @param checkpointDay - Number of days to simulate before saving, or 0 to save none.
+	 */
+	public void setCheckpointDay(int checkpointDay) {
+		this.checkpointDay = checkpointDay;
+	}
+	
+	/**
+	 * Retrieves the checkpoint saved by the last run.
+	 * @return The checkpoint, or null if the run ended before the checkpoint day.
+	 */
+	public Checkpoint getCheckpoint() {
+		return checkpoint;
+	}
+	
+	/**
+	 * Retrieves the day the last run detected a steady state at and extrapolated the days after it.
+	 * @return Number of days simulated, or 0 if every day was simulated.
+	 */
+	public int getStopDay() {
+		return stopDay;
+	}
+	
+	/**
+	 * Retrieves the half width of the confidence interval around the last run's extrapolated score.
+	 * @return Half width of interval, 0 if every day was simulated.
+	 */
+	public double getExtrapolationHalfWidth() {
+		return extrapolationHalfWidth;
+	}
+	
+	/**
+	 * Runs the simulation using the decision net.
+	 * @return Score of simulation. 0 if the group starved or the simulation was pruned.
+	 */
+	public double run() {
+		return run(null);
+	}
+	
+	/**
+	 * Runs the simulation using the decision net, resuming from a checkpoint. Only the days after the checkpoint are simulated, drawing from
+	 * the checkpoint's random stream rather than this simulation's.
+	 * If a steady state window is configured, the run stops once the group's daily statistics settle, and the days left are extrapolated
+	 * from the mean of the last two windows.
+	 * @param from - Checkpoint to resume from, or null to simulate from the first day.
+	 * @return Score of simulation. 0 if the group starved or the simulation was pruned.
+	 */
+	public double run(Checkpoint from) {
+		start();
+		double maxDailyExcess = Double.isNaN(incumbent) ? 0 : maxDailyExcess(config);
+		int i = 0;
+		if(from != null) {
+			from.restore(group, stock);
+			random = from.getRandom();
+			i = from.getDay();
+		}
+		SteadyStateDetector detector = config.getSteadyStateWindow() > 0 ? new SteadyStateDetector(config, group) : null;
+		double extrapolatedDeficient = 0;
+		for(; i < config.getDaysToRun(); i++) {
+			if(!runDay(i)) {
+				break;
+			}
+			
+			if(i + 1 == checkpointDay) {
+				checkpoint = new Checkpoint(i + 1, group, random, stock);
+			}
+			
+			if(!Double.isNaN(incumbent) && !canBeat(config, incumbent, i + 1, group.getExcessMeat() + group.getExcessPlants(), group.daysDeficient(), maxDailyExcess)) {
+				pruned = true;
+				return 0;
+			}
+			
+			if(detector != null) {
+				detector.record(group);
+				// Never stop before the checkpoint is saved
+				if(i + 1 >= checkpointDay && detector.isSteady()) {
+					int daysLeft = config.getDaysToRun() - (i + 1);
+					detector.extrapolate(group, daysLeft);
+					extrapolatedDeficient = detector.deficientDays(daysLeft);
+					extrapolationHalfWidth = detector.halfWidth(daysLeft);
+					stopDay = i + 1;
+					i = config.getDaysToRun();
+					break;
+				}
+			}
+		}
+		
+		return score(i, extrapolatedDeficient);
+	}
+	
+	/**
+	 * Starts a new run with a fresh group, to be simulated one day at a time.
+	 */
+	public void start() {
+		compile();
+		group = config.getGroupTemplate().newGroup();
+		if(!sharedStock) {
+			stock = config.isStockLimited() ? new ResourceStock(config.getResources(), schedule) : null;
+		}
+		pruned = false;
+		checkpoint = null;
+		stopDay = 0;
+		extrapolationHalfWidth = 0;
+	}
+	
+	/**
+	 * Simulates one day: foraging, feeding the group and adding what was brought back to the group's tallies.
+	 * @param day - Day to simulate.
+	 * @return False if the group starved.
+	 */
+	public boolean runDay(int day) {
+		if(tape != null) {
+			if(cursors == null) {
+				cursors = new int[config.getNumParties()];
+			}
+			for(int p = 0; p < cursors.length; p++) {
+				cursors[p] = tape.start(day, p);
+			}
+		}
+		animals = schedule.getAnimals(day);
+		plants = schedule.getPlants(day);
+		if(stock != null && !sharedStock) {
+			stock.startDay(day);
+		}
+		if(config.isEventDriven()) {
+			runDayEvents(day);
+		} else {
+			runDayMinutes(day);
+		}
+		try {
+			group.feedGroup();
+		} catch(StarvationException e) {
+			return false;
+		}
+		
+		List<Resource> resources = config.getResources();
+		for(Party party: group.getParties()) {
+			party.setActive(true);
+			party.setGathering(false);
+			party.setGatherTimeRemaining(0);
+			party.newDay();
+			// Add all gathered resources to the total gathered resources of the group
+			for(int r = 0; r < resources.size(); r++) {
+				Resource resource = resources.get(r);
+				if(party.isCarrying(resource)) {
+					group.tally(resource, (int)Math.ceil(party.getCarried(resource) / resource.getWeight()));
+				}
+			}
+			party.clearObtained();
+		}
+		if(stock != null && !sharedStock) {
+			stock.endDay();
+		}
+		return true;
+	}
+	
+	/**
+	 * Scores the group after a run.
+	 * @param daysSurvived - Number of days the group survived.
+	 * @return Score of the group. 0 if it did not survive every day.
+	 */
+	public double score(int daysSurvived) {
+		return score(daysSurvived, 0);
+	}
+	
+	/**
+	 * Scores the group after a run, including the deficient days expected over extrapolated days.
+	 * @param daysSurvived - Number of days the group survived, including extrapolated days.
+	 * @param extrapolatedDeficient - Expected deficient days over the extrapolated days.
+	 * @return Score of the group. 0 if it did not survive every day.
+	 */
+	private double score(int daysSurvived, double extrapolatedDeficient) {
+		// If group did not survive, do not score.
+		if(daysSurvived != config.getDaysToRun()) {
+			return 0;
+		}
+		
+		// Grant 1000 points for each day survived
+		double score = (daysSurvived) * 1000;
+		group.setDaysSurvived(daysSurvived);
+		
+		// Add excess calories to score
+		score += group.getExcessMeat() + group.getExcessPlants();
+		// Subtract the number of deficient days from the score, multiplied by 1000 for significance
+		score -= (group.daysDeficient() + extrapolatedDeficient) * 1000;
+		
+		return score;
+	}
+	
+	/**
+	 * Checks if the final score could still beat a score, using an optimistic bound on the days left.
+	 * When maximizing, the bound assumes every party comes home fully loaded with the densest resource every day and nobody is deficient again.
+	 * When minimizing, it assumes no more excess calories and that every member with the most deficient days is deficient every day left.
+	 * @param config - Configuration being simulated.
+	 * @param score - Score to beat.
+	 * @param daysRun - Number of days simulated so far.
+	 * @param excess - Excess calories stored so far.
+	 * @param daysDeficient - Most days any member has been deficient so far.
+	 * @param maxDailyExcess - Most excess calories the group could add in one day.
+	 * @return False if the final score cannot beat score.
+	 */
+	static boolean canBeat(Configuration config, double score, int daysRun, double excess, int daysDeficient, double maxDailyExcess) {
+		int daysLeft = config.getDaysToRun() - daysRun;
+		if(config.isMaximize()) {
+			double bound = config.getDaysToRun() * 1000 + excess + daysLeft * maxDailyExcess - daysDeficient * 1000;
+			return bound > score;
+		} else {
+			double bound = config.getDaysToRun() * 1000 + excess - (daysDeficient + daysLeft) * 1000;
+			return bound < score;
+		}
+	}
+	
+	/**
+	 * Calculates the most excess calories the group could possibly add to its stores in one day.
+	 * @param config - Configuration being simulated.
+	 * @return Upper bound on the excess calories of a day.
+	 */
+	static double maxDailyExcess(Configuration config) {
+		double densestAnimal = 0;
+		double densestPlant = 0;
+		for(Resource resource: config.getResources()) {
+			double density = resource.getCalories() / resource.getWeight();
+			if(resource.isAnimal()) {
+				densestAnimal = Math.max(densestAnimal, density);
+			} else {
+				densestPlant = Math.max(densestPlant, density);
+			}
+		}
+		
+		// Parties alternate between hunting and gathering, starting with hunting
+		int huntingParties = (config.getNumParties() + 1) / 2;
+		int gatheringParties = config.getNumParties() / 2;
+		double maxPartyWeight = config.getPartySize() * Person.MAX_WEIGHT;
+		double maxMeat = huntingParties * maxPartyWeight * densestAnimal;
+		double maxPlants = gatheringParties * maxPartyWeight * densestPlant;
+		
+		// Everyone needs at least a day's worth of calories at rest before anything is left over
+		double minNeeded = config.getNumPeople() * 24 * 60 * Math.min(Person.CALS_BURNED_AT_REST, Person.CALS_BURNED_FORAGING);
+		return Math.max(0, maxMeat - minNeeded * Person.MEAT_RATIO) + Math.max(0, maxPlants - minNeeded * (1 - Person.MEAT_RATIO));
+	}
+	
+	/**
+	 * Simulates one day of foraging one minute at a time.
+	 * @param day - Day being simulated.
+	 */
+	private void runDayMinutes(int day) {
+		List<Party> parties = group.getParties();
+		for(int j = 0; j < config.getHoursToRun() * 60; j++) {
+			
+			for(int p = 0; p < parties.size(); p++) {
+				Party party = parties.get(p);
+				if(party.isActive()) {
+					party.advanceMinutesForaged();
+					if(party.isGathering()) {
+						party.setGatherTimeRemaining(party.getGatherTimeRemaining() - 1);
+						if(party.getGatherTimeRemaining() == 0) {
+							party.setGathering(false);
+						}
+					} else {
+						Resource resource;
+						int encounter = -1;
+						if(tape == null) {
+							resource = generateResource(party, j);
+						} else {
+							encounter = nextEncounter(day, p, j);
+							resource = encounter >= 0 && tape.minute(encounter) == j ? config.getResources().get(tape.resource(encounter)) : null;
+						}
+						double decision = decide(party, j, resource);// Decision will be 0 for ignore, 1 for hunt, 2 for return to camp
+						if(resource != null && decision == 1) {
+							party.setGathering(true);
+							party.setGatherTimeRemaining(resource.getGatherTime() + resource.getProcessTime());
+							double roll = tape == null ? random.nextDouble() : tape.roll(encounter);
+							if(roll <= resource.getSuccessRate()) {
+								party.optimizeResources(resource, resource.getWeight());
+								if(stock != null) {
+									stock.harvest(resource);
+								}
+							}
+						} else if(decision == 2) {
+							party.setActive(false);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Simulates one day of foraging by jumping from encounter to encounter. Each party sits in a queue keyed by the minute it next searches,
+	 * the wait until its next encounter is sampled from the geometric distribution of the per minute encounter chance, and gathering time is skipped over.
+	 * A wait that runs past the end of the current period is cut short there and sampled again at the next period's chance, which the memoryless
+	 * wait makes exact. With resource stocks, a wait is sampled at the stocks left when the party starts searching, so gathering by other parties
+	 * in the meantime only affects its next wait.
+	 * The statistics of the day are the same as stepping one minute at a time, as long as the decision net's output for an empty minute only crosses
+	 * the return to camp threshold once over the day. This holds for single layer nets, and nets with hidden layers check every empty minute instead.
+	 * @param day - Day being simulated.
+	 */
+	private void runDayEvents(int day) {
+		int minutes = config.getHoursToRun() * 60;
+		List<Party> parties = group.getParties();
+		if(events == null) {
+			events = new EventQueue(parties.size());
+		}
+		events.clear();
+		for(int p = 0; p < parties.size(); p++) {
+			events.add(0, p);
+		}
+		
+		while(!events.isEmpty()) {
+			long event = events.poll();
+			int minute = EventQueue.minute(event);
+			Party party = parties.get(EventQueue.party(event));
+			
+			// Minute of next encounter, or the end of the day if there is none before it
+			int encounter = minutes;
+			int taped = -1;
+			ResourceSampler sampler = null;
+			if(tape != null) {
+				taped = nextEncounter(day, EventQueue.party(event), minute);
+				if(taped >= 0) {
+					encounter = tape.minute(taped);
+				}
+			} else {
+				int searched = minute;
+				while(searched < minutes) {
+					double chance;
+					if(stock != null) {
+						chance = stock.getEncounterChance(party.isHunting(), searched);
+					} else {
+						sampler = (party.isHunting() ? animals : plants)[schedule.period(searched)];
+						chance = sampler.getEncounterChance();
+					}
+					int periodEnd = schedule.periodEnd(searched);
+					if(chance >= 1) {
+						encounter = searched;
+						break;
+					} else if(chance > 0) {
+						double gap = Math.floor(Math.log(1 - random.nextDouble()) / Math.log1p(-chance));
+						if(gap < periodEnd - searched) {
+							encounter = searched + (int)gap;
+							break;
+						}
+					}
+					searched = periodEnd;
+				}
+			}
+			
+			int returned = firstReturnMinute(party, minute, encounter);
+			if(returned >= 0) {
+				party.advanceMinutesForaged(returned - minute + 1);
+				party.setActive(false);
+				continue;
+			}
+			if(encounter == minutes) {
+				party.advanceMinutesForaged(minutes - minute);
+				continue;
+			}
+			
+			party.advanceMinutesForaged(encounter - minute + 1);
+			Resource resource;
+			if(stock != null) {
+				resource = stock.sampleEncountered(party.isHunting(), encounter, random.nextDouble());
+			} else if(tape == null) {
+				resource = sampler.sampleEncountered(random.nextDouble());
+			} else {
+				resource = config.getResources().get(tape.resource(taped));
+			}
+			double decision = decide(party, encounter, resource);// Decision will be 0 for ignore, 1 for hunt, 2 for return to camp
+			if(decision == 1) {
+				int gatherTime = resource.getGatherTime() + resource.getProcessTime();
+				double roll = tape == null ? random.nextDouble() : tape.roll(taped);
+				if(roll <= resource.getSuccessRate()) {
+					party.optimizeResources(resource, resource.getWeight());
+					if(stock != null) {
+						stock.harvest(resource);
+					}
+				}
+				if(gatherTime <= 0 || encounter + gatherTime >= minutes - 1) {
+					// Party is still gathering at the end of the day
+					party.advanceMinutesForaged(minutes - 1 - encounter);
+				} else {
+					party.advanceMinutesForaged(gatherTime);
+					events.add(encounter + gatherTime + 1, EventQueue.party(event));
+				}
+			} else if(decision == 2) {
+				party.setActive(false);
+			} else {
+				events.add(encounter + 1, EventQueue.party(event));
+			}
+		}
+	}
+	
+	/**
+	 * Advances a party's position on the tape to its first encounter at or after a minute.
+	 * @param day - Day being simulated.
+	 * @param party - Index of party.
+	 * @param minute - Earliest minute of encounter.
+	 * @return Index of encounter on the tape, or -1 if the party has no more encounters today.
+	 */
+	private int nextEncounter(int day, int party, int minute) {
+		int end = tape.end(day, party);
+		while(cursors[party] < end && tape.minute(cursors[party]) < minute) {
+			cursors[party]++;
+		}
+		return cursors[party] < end ? cursors[party] : -1;
+	}
+	
+	/**
+	 * Finds the first minute without an encounter at which a party would return to camp.
+	 * @param party - Party searching.
+	 * @param from - First minute searched.
+	 * @param to - Minute after the last minute searched.
+	 * @return First minute in the range the decision net returns to camp, or -1 if it does not.
+	 */
+	private int firstReturnMinute(Party party, int from, int to) {
+		if(from >= to) {
+			return -1;
+		}
+		if(compiledNet.hasHiddenLayers()) {
+			// Output of a hidden layer net need not be monotone in time, so every minute is checked
+			for(int minute = from; minute < to; minute++) {
+				if(decide(party, minute, null) == 2) {
+					return minute;
+				}
+			}
+			return -1;
+		}
+		if(decide(party, from, null) == 2) {
+			return from;
+		}
+		if(decide(party, to - 1, null) != 2) {
+			return -1;
+		}
+		// Output is monotone in time between the two ends, search for where it crosses
+		int low = from;
+		int high = to - 1;
+		while(high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if(decide(party, middle, null) == 2) {
+				high = middle;
+			} else {
+				low = middle;
+			}
+		}
+		return high;
+	}
+	
+	/**
+	 * Compiles the decision net and finds the slot of each of its inputs.
+	 */
+	private void compile() {
+		compiledNet = codeGenerator == null ? new CompiledNet(decisionNet) : codeGenerator.newCompiledNet();
+		partySizeInput = compiledNet.inputIndex("party_size");
+		weightInput = compiledNet.inputIndex("current_weight");
+		calsInput = compiledNet.inputIndex("current_cals");
+		timeInput = compiledNet.inputIndex("current_time");
+		resourceCaloriesInput = compiledNet.inputIndex("current_resource_calories");
+		resourceGatherTimeInput = compiledNet.inputIndex("current_resource_gatherTime");
+		resourceProcessTimeInput = compiledNet.inputIndex("current_resource_processTime");
+		resourceWeightInput = compiledNet.inputIndex("current_resource_weight");
+		resourceSuccessInput = compiledNet.inputIndex("current_resource_success");
+	}
+	
+	/**
+	 * Asks the decision net what a party should do.
+	 * @param party - Party deciding.
+	 * @param minute - Current minute of the day.
+	 * @param resource - Resource encountered, or null if nothing was encountered.
+	 * @return 0 for ignore, 1 for hunt, 2 for return to camp.
+	 */
+	private double decide(Party party, int minute, Resource resource) {
+		double[] inputs = compiledNet.getInputs();
+		inputs[partySizeInput] = party.size();
+		inputs[weightInput] = party.getCurrentWeight();
+		inputs[calsInput] = party.getCurrentCals();
+		inputs[timeInput] = minute;
+		if(resource != null) {
+			inputs[resourceCaloriesInput] = resource.getCalories();
+			inputs[resourceGatherTimeInput] = resource.getGatherTime();
+			inputs[resourceProcessTimeInput] = resource.getProcessTime();
+			inputs[resourceWeightInput] = resource.getProcessTime();
+			inputs[resourceSuccessInput] = resource.getSuccessRate();
+		} else {
+			inputs[resourceCaloriesInput] = 0;
+			inputs[resourceGatherTimeInput] = 0;
+			inputs[resourceProcessTimeInput] = 0;
+			inputs[resourceWeightInput] = 0;
+			inputs[resourceSuccessInput] = 0;
+		}
+		
+		return compiledNet.getOutput();
+	}
+	
+	/**
+	 * Generates a random resource.
+	 * @param party - Party to generate resource for.
+	 * @param minute - Current minute of the day.
+	 * @return Animal if party is hunting, Plant if party is gathering, null if no animal is generated.
+	 */
+	private Resource generateResource(Party party, int minute) {
+		if(stock != null) {
+			return stock.sample(party.isHunting(), minute, random.nextDouble());
+		} else if(party.isHunting()) {
+			return animals[schedule.period(minute)].sample(random.nextDouble());
+		} else {
+			return plants[schedule.period(minute)].sample(random.nextDouble());
+		}
+	}
+}
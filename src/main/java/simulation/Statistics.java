@@ -0,0 +1,115 @@
+package main.java.simulation;
+
+/**
+ * This class contains the statistics used to compare noisy simulation results.
+ * @author Kyle McVay
+ */
+public class Statistics {
+	private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+	private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+	private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+	private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+	
+	/**
+	 * Calculates the quantile of the standard normal distribution (Acklam's approximation, accurate to about 1e-9).
+	 * @param p - Probability, between 0 and 1 exclusive.
+	 * @return Value below which a standard normal variable falls with probability p.
+	 */
+	public static double normalQuantile(double p) {
+		if(p <= 0 || p >= 1) {
+			throw new IllegalArgumentException("Probability must be between 0 and 1");
+		}
+		double low = 0.02425;
+		if(p < low) {
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5]) / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+		} else if(p > 1 - low) {
+			double q = Math.sqrt(-2 * Math.log(1 - p));
+			return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5]) / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+		} else {
+			double q = p - 0.5;
+			double r = q * q;
+			return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+		}
+	}
+	
+	/**
+	 * Calculates the two sided quantile of Student's t distribution (Hill's algorithm 396, accurate to about 1e-6 at the usual confidence levels).
+	 * @param p - Probability of falling outside the interval, between 0 and 1 exclusive.
+	 * @param degreesOfFreedom - Degrees of freedom, at least 1.
+	 * @return Value t such that a t distributed variable falls outside -t to t with probability p.
+	 */
+	public static double tQuantile(double p, int degreesOfFreedom) {
+		if(p <= 0 || p >= 1) {
+			throw new IllegalArgumentException("Probability must be between 0 and 1");
+		}
+		if(degreesOfFreedom < 1) {
+			throw new IllegalArgumentException("Degrees of freedom must be at least 1");
+		}
+		double n = degreesOfFreedom;
+		if(degreesOfFreedom == 1) {
+			double angle = p * Math.PI / 2;
+			return Math.cos(angle) / Math.sin(angle);
+		} else if(degreesOfFreedom == 2) {
+			return Math.sqrt(2 / (p * (2 - p)) - 2);
+		}
+		double a = 1 / (n - 0.5);
+		double b = 48 / (a * a);
+		double c = ((20700 * a / b - 98) * a - 16) * a + 96.36;
+		double d = ((94.5 / (b + c) - 3) / b + 1) * Math.sqrt(a * Math.PI / 2) * n;
+		double x = d * p;
+		double y = Math.pow(x, 2 / n);
+		if(y > 0.05 + a) {
+			// Far from the tails, correct the normal quantile
+			x = normalQuantile(p / 2);
+			y = x * x;
+			if(degreesOfFreedom < 5) {
+				c += 0.3 * (n - 4.5) * (x + 0.6);
+			}
+			c = (((0.05 * d * x - 5) * x - 7) * x - 2) * x + b + c;
+			y = (((((0.4 * y + 6.3) * y + 36) * y + 94.5) / c - y - 3) / b + 1) * x;
+			y = a * y * y;
+			y = y > 0.002 ? Math.exp(y) - 1 : 0.5 * y * y + y;
+		} else {
+			y = ((1 / (((n + 6) / (n * y) - 0.089 * d - 0.822) * (n + 2) * 3) + 0.5 / (n + 4)) * y - 1) * (n + 1) / (n + 2) + 1 / y;
+		}
+		return Math.sqrt(n * y);
+	}
+	
+	/**
+	 * Calculates the half width of a two sided confidence interval around a sample mean. The interval uses Student's t distribution with
+	 * count - 1 degrees of freedom, since the variance is estimated from the same few samples.
+	 * @param count - Number of samples.
+	 * @param sum - Sum of samples.
+	 * @param sumOfSquares - Sum of the squares of samples.
+	 * @param confidence - Confidence level, for example 0.95.
+	 * @return Half width of interval, or infinity if there are fewer than 2 samples.
+	 */
+	public static double halfWidth(int count, double sum, double sumOfSquares, double confidence) {
+		if(count < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return tQuantile(1 - confidence, count - 1) * Math.sqrt(variance(count, sum, sumOfSquares) / count);
+	}
+	
+	/**
+	 * Calculates the sample variance of a set of samples.
+	 * @param count - Number of samples, at least 2.
+	 * @param sum - Sum of samples.
+	 * @param sumOfSquares - Sum of the squares of samples.
+	 * @return Unbiased sample variance.
+	 */
+	public static double variance(int count, double sum, double sumOfSquares) {
+		double mean = sum / count;
+		return Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1));
+	}
+	
+	/**
+	 * Calculates how many standard errors a two sided confidence interval extends either side of its estimate.
+	 * @param confidence - Confidence level, for example 0.95.
+	 * @return Critical value of the standard normal distribution.
+	 */
+	public static double criticalValue(double confidence) {
+		return normalQuantile(1 - (1 - confidence) / 2);
+	}
+}
@@ -0,0 +1,170 @@
+package main.java.simulation;
+
+import java.util.List;
+
+import main.java.people.Group;
+import main.java.people.Person;
+import main.java.resource.Resource;
+
+/**
+ * This class watches the statistics of each simulated day to detect when a group has settled into a steady state, so the rest of a long run
+ * can be extrapolated rather than simulated. It keeps the last two windows of daily excess meat and plants, growth in deficient days, longest
+ * deficient streak and individuals gathered of each resource. The state is steady once the mean of every statistic differs between the two
+ * windows by no more than the tolerance, relative to the larger mean. Noise is not counted as agreement, so a short or noisy window does not
+ * make a run stop early.
+ * Extrapolation assumes the group survives every day left. A group whose deficient streaks are growing may still starve after the steady
+ * state is detected, and that risk is not part of the extrapolated score or its confidence interval.
+ * @author Kyle McVay
+ */
+public class SteadyStateDetector {
+	private static final int MEAT = 0;
+	private static final int PLANTS = 1;
+	private static final int DEFICIENT = 2;
+	private static final int STREAK = 3;
+	private static final int TALLIES = 4;
+	
+	private List<Resource> resources;
+	private int window;
+	private double tolerance;
+	private double criticalValue;
+	
+	// Daily statistics of the last two windows, indexed by statistic then day modulo two windows
+	private double[][] days;
+	private int recorded;
+	
+	private double lastMeat;
+	private double lastPlants;
+	private int lastDeficient;
+	private int[] lastGathered;
+	
+	/**
+	 * Constructs a new SteadyStateDetector, starting from the current state of a group.
+	 * @param config - Configuration being simulated.
+	 * @param group - Group being simulated.
+	 */
+	public SteadyStateDetector(Configuration config, Group group) {
+		this.resources = config.getResources();
+		this.window = config.getSteadyStateWindow();
+		this.tolerance = config.getSteadyStateTolerance();
+		this.criticalValue = Statistics.tQuantile(1 - config.getConfidence(), 2 * window - 1);
+		this.days = new double[TALLIES + resources.size()][2 * window];
+		this.lastGathered = new int[resources.size()];
+		
+		this.lastMeat = group.getExcessMeat();
+		this.lastPlants = group.getExcessPlants();
+		this.lastDeficient = group.daysDeficient();
+		for(int r = 0; r < resources.size(); r++) {
+			lastGathered[r] = group.getGathered(resources.get(r));
+		}
+	}
+	
+	/**
+	 * Records the statistics of the day just simulated.
+	 * @param group - Group being simulated, at the end of the day.
+	 */
+	public void record(Group group) {
+		int day = recorded % (2 * window);
+		days[MEAT][day] = group.getExcessMeat() - lastMeat;
+		days[PLANTS][day] = group.getExcessPlants() - lastPlants;
+		days[DEFICIENT][day] = group.daysDeficient() - lastDeficient;
+		int streak = 0;
+		for(Person member: group.getMembers()) {
+			streak = Math.max(streak, member.getDeficientStreak());
+		}
+		days[STREAK][day] = streak;
+		lastMeat = group.getExcessMeat();
+		lastPlants = group.getExcessPlants();
+		lastDeficient = group.daysDeficient();
+		for(int r = 0; r < resources.size(); r++) {
+			int gathered = group.getGathered(resources.get(r));
+			days[TALLIES + r][day] = gathered - lastGathered[r];
+			lastGathered[r] = gathered;
+		}
+		recorded++;
+	}
+	
+	/**
+	 * Checks if every statistic has been stationary over the last two windows.
+	 * @return True if the rest of the run may be extrapolated.
+	 */
+	public boolean isSteady() {
+		if(recorded < 2 * window) {
+			return false;
+		}
+		for(int stat = 0; stat < days.length; stat++) {
+			// The older window starts where the next day will be written
+			int older = recorded % (2 * window);
+			double sumOlder = 0;
+			double sumNewer = 0;
+			for(int d = 0; d < window; d++) {
+				sumOlder += days[stat][(older + d) % (2 * window)];
+				sumNewer += days[stat][(older + window + d) % (2 * window)];
+			}
+			double meanOlder = sumOlder / window;
+			double meanNewer = sumNewer / window;
+			if(Math.abs(meanNewer - meanOlder) > tolerance * Math.max(Math.abs(meanOlder), Math.abs(meanNewer))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds the expected excess calories and individuals gathered of the days left to a group, at the mean daily rates of the last two windows.
+	 * Every day left is assumed to be survived.
+	 * @param group - Group being simulated.
+	 * @param daysLeft - Number of days not simulated.
+	 */
+	public void extrapolate(Group group, int daysLeft) {
+		group.setExcessMeat(group.getExcessMeat() + daysLeft * mean(MEAT));
+		group.setExcessPlants(group.getExcessPlants() + daysLeft * mean(PLANTS));
+		for(int r = 0; r < resources.size(); r++) {
+			int gathered = (int)Math.round(daysLeft * mean(TALLIES + r));
+			if(gathered > 0) {
+				group.tally(resources.get(r), gathered);
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the expected growth in the group's deficient days over the days left.
+	 * @param daysLeft - Number of days not simulated.
+	 * @return Expected additional deficient days.
+	 */
+	public double deficientDays(int daysLeft) {
+		return daysLeft * mean(DEFICIENT);
+	}
+	
+	/**
+	 * Calculates the half width of the confidence interval around the extrapolated score. It accounts for the variation of the days left
+	 * around the mean daily score, and for the uncertainty of the mean itself, using Student's t distribution. It does not account for the
+	 * group starving during the days left.
+	 * @param daysLeft - Number of days not simulated.
+	 * @return Half width of interval.
+	 */
+	public double halfWidth(int daysLeft) {
+		int count = 2 * window;
+		double sum = 0;
+		double sumOfSquares = 0;
+		for(int d = 0; d < count; d++) {
+			double score = days[MEAT][d] + days[PLANTS][d] - days[DEFICIENT][d] * 1000;
+			sum += score;
+			sumOfSquares += score * score;
+		}
+		double variance = Statistics.variance(count, sum, sumOfSquares);
+		return criticalValue * Math.sqrt(daysLeft * variance + (double)daysLeft * daysLeft * variance / count);
+	}
+	
+	/**
+	 * Calculates the mean daily value of a statistic over the last two windows.
+	 * @param stat - Index of statistic.
+	 * @return Mean per day.
+	 */
+	private double mean(int stat) {
+		double sum = 0;
+		for(double value: days[stat]) {
+			sum += value;
+		}
+		return sum / days[stat].length;
+	}
+}